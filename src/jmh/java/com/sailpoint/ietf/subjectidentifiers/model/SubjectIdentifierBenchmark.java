@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing, validating and serializing each Subject Identifier fixture. Run through
+ * the Gradle jmh task, which also enables the GC profiler to report allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubjectIdentifierBenchmark {
+
+    @Param({
+            "account",
+            "email",
+            "phone_number",
+            "iss_sub",
+            "aliases",
+            "jwt_id",
+            "saml_assertion_id",
+            "opaque",
+            "oauth_token",
+            "did",
+            SubjectIdentifierFixtures.COMPLEX,
+            SubjectIdentifierFixtures.COMPLEX_DEEP,
+            SubjectIdentifierFixtures.ALIASES_LARGE
+    })
+    public String fixture;
+
+    private String json;
+    private byte[] jsonBytes;
+    private final SubjectIdentifierParser parser = new SubjectIdentifierParser();
+    private final SubjectIdentifierWriter writer = new SubjectIdentifierWriter();
+    private final SubjectIdentifierCbor cbor = new SubjectIdentifierCbor();
+    private byte[] cborBytes;
+    private JSONObject parsed;
+    private SubjectIdentifier subject;
+
+    @Setup
+    public void setUp() throws ParseException, SIValidationException {
+        json = SubjectIdentifierFixtures.json(fixture);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        parsed = new JSONObject(JSONObjectUtils.parse(json));
+        subject = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(json)));
+        cborBytes = cbor.encode(subject);
+    }
+
+    @Benchmark
+    public SubjectIdentifier convertSubjects() throws ParseException, SIValidationException {
+        return SubjectIdentifier.convertSubjects(parsed);
+    }
+
+    // Routing on the format and the user, as adopting a JWT claim allows without converting the rest.
+    @Benchmark
+    public SubjectIdentifier adoptAndGetUser() throws ParseException, SIValidationException {
+        final SubjectIdentifierView view = SubjectIdentifier.adopt(parsed);
+        return null == view.getFormat() ? view.getChild(SubjectIdentifierMembers.USER) : null;
+    }
+
+    @Benchmark
+    public SubjectIdentifier parseAndConvertSubjects() throws ParseException, SIValidationException {
+        return SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(json)));
+    }
+
+    @Benchmark
+    public SubjectIdentifier parseBytes() throws ParseException, SIValidationException {
+        return parser.parse(jsonBytes);
+    }
+
+    // Validating again an unchanged tree, which only checks that the remembered validation is current.
+    @Benchmark
+    public SubjectIdentifier validate() throws ParseException, SIValidationException {
+        subject.validate();
+        return subject;
+    }
+
+    // Validating the whole tree, as the first validation of a subject does.
+    @Benchmark
+    public SubjectIdentifier validateCold() throws ParseException, SIValidationException {
+        SubjectIdentifier.forgetValidations();
+        subject.validate();
+        return subject;
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return subject.toJSONString();
+    }
+
+    @Benchmark
+    public ByteBuffer writeBytes() {
+        return writer.toByteBuffer(subject);
+    }
+
+    @Benchmark
+    public byte[] fingerprint() {
+        return subject.fingerprint();
+    }
+
+    @Benchmark
+    public byte[] computeFingerprint() {
+        return writer.fingerprint(subject);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() {
+        return cbor.encode(subject);
+    }
+
+    @Benchmark
+    public SubjectIdentifier decodeCbor() throws ParseException, SIValidationException {
+        return cbor.decode(cborBytes);
+    }
+}
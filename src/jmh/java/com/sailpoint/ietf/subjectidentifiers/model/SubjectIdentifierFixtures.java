@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON text of the Subject Identifiers exercised by the benchmarks. There is one fixture per
+ * format in {@link SubjectIdentifierFormats}, plus complex subjects and large aliases arrays.
+ */
+final class SubjectIdentifierFixtures {
+
+    static final String COMPLEX = "complex";
+    static final String COMPLEX_DEEP = "complex_deep";
+    static final String ALIASES_LARGE = "aliases_large";
+
+    static final int COMPLEX_DEEP_DEPTH = 8;
+    static final int ALIASES_LARGE_SIZE = 256;
+
+    private static final Map<String, String> FIXTURES = new LinkedHashMap<>();
+
+    static {
+        FIXTURES.put(SubjectIdentifierFormats.ACCOUNT.toString(), account(0));
+        FIXTURES.put(SubjectIdentifierFormats.EMAIL.toString(), email(0));
+        FIXTURES.put(SubjectIdentifierFormats.PHONE_NUMBER.toString(), phoneNumber(0));
+        FIXTURES.put(SubjectIdentifierFormats.ISSUER_SUBJECT.toString(), issSub(0));
+        FIXTURES.put(SubjectIdentifierFormats.ALIASES.toString(), aliases(3));
+        FIXTURES.put(SubjectIdentifierFormats.JWT_ID.toString(), "{"
+                + "\"format\":\"jwt_id\","
+                + "\"iss\":\"https://issuer.example.com/\","
+                + "\"jti\":\"B70BA622-9515-4353-A866-823539EECBC8\"}");
+        FIXTURES.put(SubjectIdentifierFormats.SAML_ASSERTION_ID.toString(), "{"
+                + "\"format\":\"saml_assertion_id\","
+                + "\"issuer\":\"https://idp.example.com/\","
+                + "\"assertion_id\":\"_8e8dc5f69a98cc4c1ff3427e5ce34606fd672f91e6\"}");
+        FIXTURES.put(SubjectIdentifierFormats.OPAQUE.toString(), opaque(0));
+        FIXTURES.put(SubjectIdentifierFormats.OAUTH_TOKEN.toString(), "{"
+                + "\"subject_type\":\"oauth_token\","
+                + "\"token_type\":\"refresh_token\","
+                + "\"token_identifier_alg\":\"plain\","
+                + "\"token\":\"7265667265736820746F6B656E20737472696E67\"}");
+        FIXTURES.put(SubjectIdentifierFormats.DID.toString(), did(0));
+        FIXTURES.put(COMPLEX, complex(0));
+        FIXTURES.put(COMPLEX_DEEP, complexDeep(COMPLEX_DEEP_DEPTH));
+        FIXTURES.put(ALIASES_LARGE, aliases(ALIASES_LARGE_SIZE));
+    }
+
+    private SubjectIdentifierFixtures() {
+    }
+
+    static String json(final String name) {
+        final String json = FIXTURES.get(name);
+        if (null == json) {
+            throw new IllegalArgumentException("No benchmark fixture named " + name);
+        }
+        return json;
+    }
+
+    private static String account(final int n) {
+        return "{\"format\":\"account\",\"uri\":\"acct:example.user" + n + "@service.example.com\"}";
+    }
+
+    private static String email(final int n) {
+        return "{\"format\":\"email\",\"email\":\"user" + n + "@example.com\"}";
+    }
+
+    private static String phoneNumber(final int n) {
+        return "{\"format\":\"phone_number\",\"phone_number\":\"+1206555" + String.format("%04d", n % 10000) + "\"}";
+    }
+
+    private static String issSub(final int n) {
+        return "{\"format\":\"iss_sub\",\"iss\":\"https://issuer.example.com/\",\"sub\":\"145234573" + n + "\"}";
+    }
+
+    private static String opaque(final int n) {
+        return "{\"format\":\"opaque\",\"id\":\"11112222333344445555" + n + "\"}";
+    }
+
+    private static String did(final int n) {
+        return "{\"format\":\"did\",\"url\":\"did:example:123456" + n + "\"}";
+    }
+
+    private static String aliases(final int size) {
+        final StringBuilder sb = new StringBuilder("{\"format\":\"aliases\",\"identifiers\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            switch (i % 5) {
+                case 0:
+                    sb.append(email(i));
+                    break;
+                case 1:
+                    sb.append(phoneNumber(i));
+                    break;
+                case 2:
+                    sb.append(issSub(i));
+                    break;
+                case 3:
+                    sb.append(account(i));
+                    break;
+                default:
+                    sb.append(opaque(i));
+                    break;
+            }
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String complex(final int n) {
+        return "{"
+                + "\"user\":" + issSub(n) + ","
+                + "\"device\":" + did(n) + ","
+                + "\"session\":" + opaque(n) + ","
+                + "\"tenant\":" + opaque(n + 1) + "}";
+    }
+
+    // A complex subject whose tenant member is itself a complex subject, depth levels deep.
+    private static String complexDeep(final int depth) {
+        String subject = complex(depth);
+        for (int level = depth - 1; level >= 0; level--) {
+            subject = "{"
+                    + "\"user\":" + issSub(level) + ","
+                    + "\"device\":" + did(level) + ","
+                    + "\"session\":" + opaque(level) + ","
+                    + "\"tenant\":" + subject + "}";
+        }
+        return subject;
+    }
+}
@@ -7,59 +7,30 @@
 package com.sailpoint.ietf.subjectidentifiers.model;
 
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.text.ParseException;
-
 public class AccountSubjectIdentifier extends SubjectIdentifier {
 
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("AccountSubjectIdentifier")
+                    .uri(SubjectIdentifierMembers.URI.toString(), "acct")
+                    .build();
+
     /**
      * The Account Identifier Format identifies a subject using an account at a service provider,
      * identified with an acct URI as defined in {{!RFC7565}}. Subject Identifiers in this format MUST contain
      * a uri member whose value is the acct URI for the subject. The uri member is REQUIRED and MUST NOT
      * be null or empty. The Account Identifier Format is identified by the name account.
      *
-     * @throws SIValidationException - if value is improper per above
+     * @param result - collects the problems found if value is improper per above
      */
-    private void validateURI() throws SIValidationException {
-        Object o = this.get(SubjectIdentifierMembers.URI.toString());
-        URI uri;
-        if (null == o) {
-            throw new SIValidationException("AccountSubjectIdentifier member uri cannot be null");
-        }
-        if (!((o instanceof String) || (o instanceof URI))) {
-            throw new SIValidationException("AccountSubjectIdentifier member uri must be a String or URI");
-        }
-        if (o instanceof String) {
-            try {
-                uri = new URI((String)o);
-            } catch (URISyntaxException e) {
-                throw new SIValidationException("AccountSubjectIdentifier member uri invalid URI");
-            }
-        }
-        else {
-            uri = (URI) o;
-        }
-        String scheme = uri.getScheme();
-        if (null == scheme) {
-            throw new SIValidationException("AccountSubjectIdentifier member uri must begin with acct: scheme");
-        }
-        if (!scheme.equals("acct")) {
-            throw new SIValidationException("AccountSubjectIdentifier member uri must have scheme acct:");
-        }
-    }
-
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-        validateURI();
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        PLAN.validate(this, result);
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
     }
 
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+/**
+ * Syntax check of email addresses as the addr-spec of RFC 5322, Section 3.4.1, without comments or folding across
+ * lines. A single pass over the String, which allocates nothing and takes time linear in its length whatever the
+ * input, where regular expressions for addr-spec can backtrack for exponential time.
+ *
+ * addr-spec      = local-part "@" domain
+ * local-part     = dot-atom / quoted-string
+ * domain         = dot-atom / domain-literal
+ */
+final class AddrSpecSyntax {
+
+    // RFC 5321, Section 4.5.3.1
+    private static final int MAX_LOCAL_PART = 64;
+    private static final int MAX_DOMAIN = 255;
+
+    // atext = ALPHA / DIGIT / "!" / "#" / "$" / "%" / "&" / "'" / "*" / "+" / "-" / "/" / "=" / "?" / "^" / "_" /
+    //         "`" / "{" / "|" / "}" / "~"
+    private static final boolean[] ATEXT = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            ATEXT[c] = true;
+            ATEXT[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ATEXT[c] = true;
+        }
+        for (char c : "!#$%&'*+-/=?^_`{|}~".toCharArray()) {
+            ATEXT[c] = true;
+        }
+    }
+
+    private AddrSpecSyntax() {
+    }
+
+    /**
+     * @param lenient - also accept the UTF-8 characters of RFC 6531 and, in an unquoted local-part, the leading,
+     * trailing and consecutive dots found in existing mailboxes, without the length limits of RFC 5321
+     * @return the index of the "@" between the local-part and the domain if s is an addr-spec, otherwise -1.
+     */
+    static int scan(final String s, final boolean lenient) {
+        final int end = s.length();
+        int i = end > 0 && s.charAt(0) == '"'
+                ? scanQuotedString(s, end, lenient) : scanDotAtom(s, 0, end, lenient, lenient);
+        if (i <= 0 || i >= end - 1 || s.charAt(i) != '@') {
+            return -1;
+        }
+        final int at = i;
+        if (s.charAt(at + 1) == '[') {
+            i = scanDomainLiteral(s, at + 2, end, lenient);
+        } else {
+            i = scanDotAtom(s, at + 1, end, lenient, false);
+        }
+        if (i != end) {
+            return -1;
+        }
+        if (!lenient && (at > MAX_LOCAL_PART || end - at - 1 > MAX_DOMAIN)) {
+            return -1;
+        }
+        return at;
+    }
+
+    // dot-atom-text = 1*atext *("." 1*atext), ending at the first other character. Returns its index, or -1.
+    private static int scanDotAtom(final String s, final int start, final int end, final boolean utf8,
+                                   final boolean looseDots) {
+        int i = start;
+        boolean afterDot = true;
+        boolean atext = false;
+        while (i < end) {
+            final char c = s.charAt(i);
+            if (c == '.') {
+                if (afterDot && !looseDots) {
+                    return -1;
+                }
+                afterDot = true;
+            } else if (c < 128 ? ATEXT[c] : utf8) {
+                afterDot = false;
+                atext = true;
+            } else {
+                break;
+            }
+            i++;
+        }
+        return !atext || (afterDot && !looseDots) ? -1 : i;
+    }
+
+    // quoted-string = DQUOTE *([FWS] qcontent) [FWS] DQUOTE. Returns the index after the closing quote, or -1.
+    private static int scanQuotedString(final String s, final int end, final boolean utf8) {
+        int i = 1;
+        while (i < end) {
+            final char c = s.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\') {
+                // quoted-pair = "\" (VCHAR / WSP)
+                if (i == end || !isQuotable(s.charAt(i), utf8)) {
+                    return -1;
+                }
+                i++;
+            } else if (!isQuotable(c, utf8)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // VCHAR / WSP, which includes qtext and the FWS of a single line.
+    private static boolean isQuotable(final char c, final boolean utf8) {
+        return (c >= 32 && c <= 126) || c == '\t' || (utf8 && c >= 128);
+    }
+
+    // domain-literal = "[" *([FWS] dtext) [FWS] "]", after the "[". Returns the index after the "]", or -1.
+    private static int scanDomainLiteral(final String s, final int start, final int end, final boolean utf8) {
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            if (c == ']') {
+                return i + 1;
+            }
+            // dtext = %d33-90 / %d94-126
+            if (c == '[' || c == '\\' || !isQuotable(c, utf8)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -8,12 +8,16 @@ package com.sailpoint.ietf.subjectidentifiers.model;
 
 
 import com.nimbusds.jose.shaded.json.JSONArray;
-import com.nimbusds.jose.shaded.json.JSONObject;
 
-import java.text.ParseException;
 
 public class AliasesSubjectIdentifier extends SubjectIdentifier {
 
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("AliasesSubjectIdentifier")
+                    .format(SubjectIdentifierFormats.ALIASES)
+                    .nonEmptyArray(SubjectIdentifierMembers.IDENTIFIERS.toString())
+                    .build();
+
     /**
      * The Aliases Identifier Format describes a subject that is identified with a list of different Subject
      * Identifiers. It is intended for use when a variety of identifiers have been shared with the party that will be
@@ -27,61 +31,46 @@ public class AliasesSubjectIdentifier extends SubjectIdentifier {
      * alias Subject Identifiers MUST NOT be nested; i.e., the identifiers member of an alias Subject Identifier MUST
      * NOT contain a Subject Identifier of type aliases.
      *
-     * @throws SIValidationException - if value is improper per above
+     * @param result - collects the problems found if value is improper per above
      */
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-
-        String format = this.getString(SubjectIdentifierMembers.FORMAT);
-        if (!(SubjectIdentifierFormats.ALIASES.toString().equals(format))) {
-            throw new SIValidationException("AliasesSubjectIdentifier format must be aliases");
-        }
-
-        if (!this.containsKey(SubjectIdentifierMembers.IDENTIFIERS.toString())) {
-            throw new SIValidationException("AliasesSubjectIdentifier must contain an identifiers member");
-        }
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        PLAN.validate(this, result);
 
-        Object o = this.get(SubjectIdentifierMembers.IDENTIFIERS.toString());
-        if (! (o instanceof JSONArray)) {
-            throw new SIValidationException("AliasesSubjectIdentifier identifiers member must be a JSON Array");
-        }
-        JSONArray identifiers = (JSONArray) o;
-        if (identifiers.isEmpty()) {
-            throw new SIValidationException("AliasesSubjectIdentifier identifiers member must have one or more items.");
+        final String member = SubjectIdentifierMembers.IDENTIFIERS.toString();
+        final Object o = this.get(member);
+        if (!(o instanceof JSONArray)) {
+            return;
         }
-        // Items in this array are other subject identifiers
-        // Validate each of them.
-        for (Object si : identifiers) {
+        final JSONArray identifiers = (JSONArray) o;
+        // Items in this array are other subject identifiers,
+        // which validateChildSubjects() validates.
+        for (int index = 0; index < identifiers.size(); index++) {
+            Object si = identifiers.get(index);
             if (si instanceof SubjectIdentifier) {
                 // Alias SIs cannot be recursive
-                SubjectIdentifier subj = (SubjectIdentifier) si;
-                String childFormat = subj.getString(SubjectIdentifierMembers.FORMAT);
-                 if (SubjectIdentifierFormats.ALIASES.toString().equals(childFormat)) {
-                     throw new SIValidationException("AliasesSubjectIdentifier identifiers member must not be an AliasSI.");
-                 }
-                subj.validate();
+                Object childFormat = ((SubjectIdentifier) si).get(SubjectIdentifierMembers.FORMAT.toString());
+                if (SubjectIdentifierFormats.ALIASES.toString().equals(childFormat)) {
+                    result.enter(member);
+                    result.enter(index);
+                    result.add(SIValidationErrorCode.ALIASES_NESTED, null,
+                            "AliasesSubjectIdentifier identifiers member must not be an AliasSI.");
+                    result.exit();
+                    result.exit();
+                }
             }
         }
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) throws ParseException, SIValidationException {
-        // Recursively create child SIs with specific object types
-        Object o = this.get(SubjectIdentifierMembers.IDENTIFIERS.toString());
-        if (!(o instanceof JSONArray)) {
-            return;
-        }
-        JSONArray identifiers = (JSONArray) o;
-        // Items in this array are other subject identifiers
-        // Replace each of them.
-        int index;
-        for (index = 0; index < identifiers.size(); index++) {
-            Object item = identifiers.get(index);
-            if (item instanceof JSONObject) {
-                identifiers.set(index, SubjectIdentifier.convertSubjects((JSONObject) item));
-            }
-        }
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
+    }
+
+    @Override
+    protected boolean isChildSubjectArrayMember(final String member) {
+        return SubjectIdentifierMembers.IDENTIFIERS.equalsName(member);
     }
 
 
@@ -7,26 +7,81 @@
 package com.sailpoint.ietf.subjectidentifiers.model;
 
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.text.ParseException;
 
 public class DIDSubjectIdentifier extends SubjectIdentifier {
 
-    @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-        final String format = (String) get(SubjectIdentifierMembers.FORMAT.toString());
-        if (null == format || !format.equals(SubjectIdentifierFormats.DID.toString())) {
-            throw new SIValidationException("DIDSubjectIdentifier must have format did.");
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("DIDSubjectIdentifier")
+                    .format(SubjectIdentifierFormats.DID)
+                    // Only urls with the did: scheme are checked, because relative URLs and other valid strings
+                    // can be here.
+                    .didURL(SubjectIdentifierMembers.URL.toString())
+                    .build();
+
+    // Components of the url member, taken out on first use. Discarded when the member no longer holds the same
+    // String. Final fields make it safe to share between threads: racing threads compute equal components.
+    private static final class Components {
+        private final String url;
+        private final String method;
+        private final String methodSpecificId;
+
+        private Components(final String url, final String method, final String methodSpecificId) {
+            this.url = url;
+            this.method = method;
+            this.methodSpecificId = methodSpecificId;
         }
-        // Minimal validation of the url field, because relative URLs and other valid strings can be here.
-        validateMemberPresentNotNullNotEmptyString(SubjectIdentifierMembers.URL.toString());
+    }
+
+    private static final Components NOT_A_DID = new Components(null, null, null);
+
+    private transient Components components;
+
+    @Override
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        PLAN.validate(this, result);
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
+    }
+
+    /**
+     * @return the method name of the DID in the url member, such as example for did:example:123456, or null if
+     * the url member does not hold a DID URL.
+     */
+    public String getMethod() {
+        return components().method;
+    }
+
+    /**
+     * @return the method-specific-id of the DID in the url member, such as 123456 for
+     * did:example:123456/path?query#fragment, or null if the url member does not hold a DID URL.
+     */
+    public String getMethodSpecificId() {
+        return components().methodSpecificId;
+    }
+
+    private Components components() {
+        final Object url = get(SubjectIdentifierMembers.URL.toString());
+        if (!(url instanceof String)) {
+            return NOT_A_DID;
+        }
+        Components current = components;
+        if (null == current || current.url != url) {
+            final String s = (String) url;
+            final long scanned = DIDSyntax.scan(s);
+            if (scanned < 0) {
+                current = new Components(s, null, null);
+            } else {
+                final int methodEnd = DIDSyntax.methodEnd(scanned);
+                current = new Components(s, s.substring(DIDSyntax.SCHEME.length(), methodEnd),
+                        s.substring(methodEnd + 1, DIDSyntax.didEnd(scanned)));
+            }
+            components = current;
+        }
+        return current;
     }
 
     public static class Builder {
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+/**
+ * Syntax check of DID URLs per W3C Decentralized Identifiers (DIDs) v1.0, Section 3, in a single pass that
+ * allocates nothing. The boundaries of the method name and of the DID are returned packed in a long, so that
+ * callers take the components out only when they need them.
+ *
+ * did                = "did:" method-name ":" method-specific-id
+ * method-name        = 1*method-char
+ * method-char        = %x61-7A / DIGIT
+ * method-specific-id = *( *idchar ":" ) 1*idchar
+ * idchar             = ALPHA / DIGIT / "." / "-" / "_" / pct-encoded
+ * did-url            = did path-abempty [ "?" query ] [ "#" fragment ]
+ */
+final class DIDSyntax {
+
+    static final String SCHEME = "did:";
+
+    private DIDSyntax() {
+    }
+
+    /**
+     * @return -1 if s is not a DID URL, otherwise the index of the colon ending the method name in the upper 32
+     * bits and the index where the DID ends, and the path, query or fragment start, in the lower 32 bits.
+     */
+    static long scan(final String s) {
+        if (!s.startsWith(SCHEME)) {
+            return -1;
+        }
+        final int end = s.length();
+        int i = SCHEME.length();
+        while (i < end && isMethodChar(s.charAt(i))) {
+            i++;
+        }
+        if (i == SCHEME.length() || i == end || s.charAt(i) != ':') {
+            return -1;
+        }
+        final int methodEnd = i++;
+        final int idStart = i;
+        while (i < end) {
+            final char c = s.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= end || !isHexDigit(s.charAt(i + 1)) || !isHexDigit(s.charAt(i + 2))) {
+                    return -1;
+                }
+                i += 3;
+            } else if (c == ':' || isIdChar(c)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        // The method-specific-id must not be empty nor end with a colon.
+        if (i == idStart || s.charAt(i - 1) == ':') {
+            return -1;
+        }
+        final int didEnd = i;
+        if (didEnd < end && s.charAt(didEnd) != '/' && s.charAt(didEnd) != '?' && s.charAt(didEnd) != '#') {
+            return -1;
+        }
+        return URISyntax.isPathQueryFragment(s, didEnd) ? ((long) methodEnd << 32) | didEnd : -1;
+    }
+
+    static int methodEnd(final long scanned) {
+        return (int) (scanned >>> 32);
+    }
+
+    static int didEnd(final long scanned) {
+        return (int) scanned;
+    }
+
+    private static boolean isMethodChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isIdChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '-' || c == '_';
+    }
+
+    private static boolean isHexDigit(final char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
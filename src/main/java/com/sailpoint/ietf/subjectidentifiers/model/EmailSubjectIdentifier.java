@@ -6,12 +6,65 @@
 
 package com.sailpoint.ietf.subjectidentifiers.model;
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.text.ParseException;
+import java.util.Objects;
 
 public class EmailSubjectIdentifier extends SubjectIdentifier {
 
+    /**
+     * Rules for the syntax of email addresses.
+     */
+    public enum AddrSpecPolicy {
+        /**
+         * The addr-spec of RFC 5322 without comments or folding whitespace, in ASCII, within the length limits of
+         * RFC 5321: 64 characters for the local-part and 255 for the domain.
+         */
+        STRICT,
+        /**
+         * As STRICT, but also accepting the UTF-8 characters of RFC 6531, unquoted local-parts with leading,
+         * trailing or consecutive dots, and any length.
+         */
+        LENIENT
+    }
+
+    private static final SubjectIdentifierValidationPlan STRICT_PLAN = plan(AddrSpecPolicy.STRICT);
+    private static final SubjectIdentifierValidationPlan LENIENT_PLAN = plan(AddrSpecPolicy.LENIENT);
+
+    private static volatile AddrSpecPolicy validationPolicy = AddrSpecPolicy.STRICT;
+
+    private static SubjectIdentifierValidationPlan plan(final AddrSpecPolicy policy) {
+        return new SubjectIdentifierValidationPlan.Builder("EmailSubjectIdentifier")
+                .format(SubjectIdentifierFormats.EMAIL)
+                .addrSpec(SubjectIdentifierMembers.EMAIL.toString(), policy)
+                .build();
+    }
+
+    /**
+     * Sets the policy that validation applies to the email member of every EmailSubjectIdentifier, STRICT unless
+     * set otherwise.
+     */
+    public static void setValidationPolicy(final AddrSpecPolicy policy) {
+        validationPolicy = Objects.requireNonNull(policy, "policy");
+        SubjectIdentifier.forgetValidations();
+    }
+
+    public static AddrSpecPolicy getValidationPolicy() {
+        return validationPolicy;
+    }
+
+    /**
+     * Finds the "@" that separates the local-part of an email address from its domain, so that the domain, which is
+     * case-insensitive, can be normalized without parsing the address again. Scans the address once, in time linear
+     * in its length, and allocates nothing.
+     *
+     * @param email - email address
+     * @param policy - syntax rules to apply
+     * @return the index of the "@" if email is an addr-spec under the policy, otherwise -1. The local-part ends
+     * before that index, and the domain starts after it and runs to the end of the address.
+     */
+    public static int indexOfDomainSeparator(final String email, final AddrSpecPolicy policy) {
+        return AddrSpecSyntax.scan(email, AddrSpecPolicy.LENIENT == policy);
+    }
+
     /**
      * The Email Identifier Format identifies a subject using an email address. Subject Identifiers in this format
      * MUST contain an email member whose value is a string containing the email address of the subject, formatted as
@@ -19,23 +72,17 @@ public class EmailSubjectIdentifier extends SubjectIdentifier {
      * empty. The value of the email member SHOULD identify a mailbox to which email may be delivered, in accordance
      * with {{!RFC5321}}. The Email Identifier Format is identified by the name email.
      *
-     * @throws SIValidationException - if value is improper per above
+     * @param result - collects the problems found if value is improper per above
      */
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-
-        String format = this.getString(SubjectIdentifierMembers.FORMAT);
-        if (!(SubjectIdentifierFormats.EMAIL.toString().equals(format))) {
-            throw new SIValidationException("EmailSubjectIdentifier format must be email");
-        }
-
-        validateMemberPresentNotNullNotEmptyString(SubjectIdentifierMembers.EMAIL.toString());
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        (AddrSpecPolicy.LENIENT == validationPolicy ? LENIENT_PLAN : STRICT_PLAN).validate(this, result);
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
     }
 
 
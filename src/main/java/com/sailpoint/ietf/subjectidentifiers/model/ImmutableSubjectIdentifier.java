@@ -0,0 +1,546 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONArray;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, compact form of a Subject Identifier, with one final class and fixed fields per format. Instances are
+ * not backed by a map, so they are much smaller than a {@link SubjectIdentifier}, and they can be shared freely
+ * between threads. The hierarchy is closed: the only subclasses are the nested classes below.
+ *
+ * Only the members defined for each format are kept: {@link #of(SubjectIdentifier)} drops other members of a
+ * formatted subject, and rejects a subject without a format unless it holds complex members only.
+ */
+public abstract class ImmutableSubjectIdentifier {
+
+    // Computed on first use; racing threads compute the same value, as with String.hashCode().
+    private int hash;
+
+    ImmutableSubjectIdentifier() {
+    }
+
+    /**
+     * @return the format, or null for a complex Subject Identifier.
+     */
+    public abstract SubjectIdentifierFormats getFormat();
+
+    /**
+     * @return a new, mutable SubjectIdentifier of the class for this format, with the same members.
+     */
+    public abstract SubjectIdentifier toSubjectIdentifier();
+
+    abstract int computeHashCode();
+
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (0 == h) {
+            h = computeHashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return toSubjectIdentifier().toJSONString();
+    }
+
+    /**
+     * Converts a Subject Identifier of one of the formats email, iss_sub, opaque, account, did, phone_number or
+     * aliases, or a complex Subject Identifier without a format member. Subjects without a format that hold
+     * members other than those of complex Subject Identifiers, such as OAuth token subjects, are rejected rather
+     * than stripped of those members.
+     *
+     * @param subj - Subject Identifier to convert, may be null
+     * @return the immutable form, or null if subj is null
+     * @throws SIValidationException - if the format has no immutable form or a required member is missing
+     */
+    public static ImmutableSubjectIdentifier of(final SubjectIdentifier subj) throws ParseException, SIValidationException {
+        if (null == subj) {
+            return null;
+        }
+        final String formatName = subj.getString(SubjectIdentifierMembers.FORMAT);
+        if (null == formatName) {
+            return Complex.fromSubjectIdentifier(subj);
+        }
+        final SubjectIdentifierFormats format = SubjectIdentifierFormats.enumByName(formatName);
+        if (null == format) {
+            throw new SIValidationException("Subject Identifier format " + formatName + " has no immutable form.");
+        }
+        switch (format) {
+            case EMAIL:
+                return new Email(required(subj, SubjectIdentifierMembers.EMAIL));
+            case ISSUER_SUBJECT:
+                return new IssSub(required(subj, SubjectIdentifierMembers.ISSUER),
+                        required(subj, SubjectIdentifierMembers.SUBJECT));
+            case OPAQUE:
+                return new Opaque(required(subj, SubjectIdentifierMembers.ID));
+            case ACCOUNT:
+                return new Account(required(subj, SubjectIdentifierMembers.URI));
+            case DID:
+                return new DID(required(subj, SubjectIdentifierMembers.URL));
+            case PHONE_NUMBER:
+                return new PhoneNumber(required(subj, SubjectIdentifierMembers.PHONE_NUMBER));
+            case ALIASES:
+                return Aliases.fromSubjectIdentifier(subj);
+            default:
+                throw new SIValidationException("Subject Identifier format " + formatName + " has no immutable form.");
+        }
+    }
+
+    // Account uri members may also hold a java.net.URI.
+    private static String required(final SubjectIdentifier subj, final SubjectIdentifierMembers member)
+            throws ParseException, SIValidationException {
+        final Object o = subj.get(member.toString());
+        if (null == o) {
+            throw new SIValidationException("SubjectIdentifier member " + member + " must not be null.");
+        }
+        if (o instanceof java.net.URI) {
+            return o.toString();
+        }
+        return subj.getString(member);
+    }
+
+    public static final class Email extends ImmutableSubjectIdentifier {
+        private final String email;
+
+        public Email(final String email) {
+            this.email = Objects.requireNonNull(email, "email");
+        }
+
+        public String getEmail() { return email; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.EMAIL; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.EMAIL.toString(), email);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            return new EmailSubjectIdentifier.Builder().email(email).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof Email && email.equals(((Email) o).email));
+        }
+    }
+
+    public static final class IssSub extends ImmutableSubjectIdentifier {
+        private final String issuer;
+        private final String subject;
+
+        public IssSub(final String issuer, final String subject) {
+            this.issuer = Objects.requireNonNull(issuer, "issuer");
+            this.subject = Objects.requireNonNull(subject, "subject");
+        }
+
+        public String getIssuer() { return issuer; }
+
+        public String getSubject() { return subject; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.ISSUER_SUBJECT; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.ISSUER_SUBJECT.toString(), issuer, subject);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            return new IssSubSubjectIdentifier.Builder().issuer(issuer).subject(subject).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IssSub) || hashCode() != o.hashCode()) {
+                return false;
+            }
+            final IssSub other = (IssSub) o;
+            return subject.equals(other.subject) && issuer.equals(other.issuer);
+        }
+    }
+
+    public static final class Opaque extends ImmutableSubjectIdentifier {
+        private final String id;
+
+        public Opaque(final String id) {
+            this.id = Objects.requireNonNull(id, "id");
+        }
+
+        public String getId() { return id; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.OPAQUE; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.OPAQUE.toString(), id);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            return new OpaqueSubjectIdentifier.Builder().id(id).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof Opaque && id.equals(((Opaque) o).id));
+        }
+    }
+
+    public static final class Account extends ImmutableSubjectIdentifier {
+        private final String uri;
+
+        public Account(final String uri) {
+            this.uri = Objects.requireNonNull(uri, "uri");
+        }
+
+        public String getUri() { return uri; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.ACCOUNT; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.ACCOUNT.toString(), uri);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            return new AccountSubjectIdentifier.Builder().uri(uri).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof Account && uri.equals(((Account) o).uri));
+        }
+    }
+
+    public static final class DID extends ImmutableSubjectIdentifier {
+        private final String url;
+
+        public DID(final String url) {
+            this.url = Objects.requireNonNull(url, "url");
+        }
+
+        public String getUrl() { return url; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.DID; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.DID.toString(), url);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            return new DIDSubjectIdentifier.Builder().url(url).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof DID && url.equals(((DID) o).url));
+        }
+    }
+
+    public static final class PhoneNumber extends ImmutableSubjectIdentifier {
+        private final String phoneNumber;
+
+        public PhoneNumber(final String phoneNumber) {
+            this.phoneNumber = Objects.requireNonNull(phoneNumber, "phoneNumber");
+        }
+
+        public String getPhoneNumber() { return phoneNumber; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.PHONE_NUMBER; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.PHONE_NUMBER.toString(), phoneNumber);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            return new PhoneNumberSubjectIdentifier.Builder().phoneNumber(phoneNumber).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof PhoneNumber && phoneNumber.equals(((PhoneNumber) o).phoneNumber));
+        }
+    }
+
+    public static final class Aliases extends ImmutableSubjectIdentifier {
+        private final List<ImmutableSubjectIdentifier> identifiers;
+
+        public Aliases(final ImmutableSubjectIdentifier... identifiers) {
+            this(Arrays.asList(identifiers));
+        }
+
+        public Aliases(final List<ImmutableSubjectIdentifier> identifiers) {
+            final ImmutableSubjectIdentifier[] copy = identifiers.toArray(new ImmutableSubjectIdentifier[0]);
+            for (ImmutableSubjectIdentifier identifier : copy) {
+                Objects.requireNonNull(identifier, "identifiers");
+                if (identifier instanceof Aliases) {
+                    throw new IllegalArgumentException("Aliases identifiers must not be aliases.");
+                }
+            }
+            this.identifiers = Collections.unmodifiableList(Arrays.asList(copy));
+        }
+
+        private static Aliases fromSubjectIdentifier(final SubjectIdentifier subj) throws ParseException, SIValidationException {
+            final Object o = subj.get(SubjectIdentifierMembers.IDENTIFIERS.toString());
+            if (!(o instanceof List)) {
+                throw new SIValidationException("AliasesSubjectIdentifier identifiers member must be a JSON Array");
+            }
+            final List<?> items = (List<?>) o;
+            final ImmutableSubjectIdentifier[] identifiers = new ImmutableSubjectIdentifier[items.size()];
+            for (int i = 0; i < identifiers.length; i++) {
+                final Object item = items.get(i);
+                if (!(item instanceof SubjectIdentifier)) {
+                    throw new SIValidationException("AliasesSubjectIdentifier identifiers must be Subject Identifiers");
+                }
+                identifiers[i] = ImmutableSubjectIdentifier.of((SubjectIdentifier) item);
+                if (identifiers[i] instanceof Aliases) {
+                    throw new SIValidationException("AliasesSubjectIdentifier identifiers member must not be an AliasSI.");
+                }
+            }
+            return new Aliases(Arrays.asList(identifiers));
+        }
+
+        public List<ImmutableSubjectIdentifier> getIdentifiers() { return identifiers; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return SubjectIdentifierFormats.ALIASES; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(SubjectIdentifierFormats.ALIASES.toString(), identifiers);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            final JSONArray array = new JSONArray();
+            for (ImmutableSubjectIdentifier identifier : identifiers) {
+                array.add(identifier.toSubjectIdentifier());
+            }
+            return new AliasesSubjectIdentifier.Builder().identifiers(array).build();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            return o instanceof Aliases && hashCode() == o.hashCode() && identifiers.equals(((Aliases) o).identifiers);
+        }
+    }
+
+    /**
+     * OpenID SSE complex Subject Identifier, which has no format member. Every member is optional.
+     */
+    public static final class Complex extends ImmutableSubjectIdentifier {
+        private final ImmutableSubjectIdentifier user;
+        private final ImmutableSubjectIdentifier device;
+        private final ImmutableSubjectIdentifier session;
+        private final ImmutableSubjectIdentifier application;
+        private final ImmutableSubjectIdentifier tenant;
+        private final ImmutableSubjectIdentifier orgUnit;
+        private final ImmutableSubjectIdentifier group;
+
+        private Complex(final Builder builder) {
+            user = builder.user;
+            device = builder.device;
+            session = builder.session;
+            application = builder.application;
+            tenant = builder.tenant;
+            orgUnit = builder.orgUnit;
+            group = builder.group;
+        }
+
+        // Members of a complex Subject Identifier; a subject without a format holding any other has no immutable form.
+        private static final Set<String> MEMBERS = new HashSet<>(Arrays.asList(
+                SubjectIdentifierMembers.USER.toString(),
+                SubjectIdentifierMembers.DEVICE.toString(),
+                SubjectIdentifierMembers.SESSION.toString(),
+                SubjectIdentifierMembers.APPLICATION.toString(),
+                SubjectIdentifierMembers.TENANT.toString(),
+                SubjectIdentifierMembers.ORG_UNIT.toString(),
+                SubjectIdentifierMembers.GROUP.toString()));
+
+        private static Complex fromSubjectIdentifier(final SubjectIdentifier subj) throws ParseException, SIValidationException {
+            if (subj.isEmpty()) {
+                throw new SIValidationException("Subject Identifier without format or complex members has no immutable form.");
+            }
+            for (String member : subj.keySet()) {
+                if (!MEMBERS.contains(member)) {
+                    throw new SIValidationException("Subject Identifier without format has no immutable form, "
+                            + "as member " + member + " is not a member of complex Subject Identifiers.");
+                }
+            }
+            return new Builder()
+                    .user(child(subj, SubjectIdentifierMembers.USER))
+                    .device(child(subj, SubjectIdentifierMembers.DEVICE))
+                    .session(child(subj, SubjectIdentifierMembers.SESSION))
+                    .application(child(subj, SubjectIdentifierMembers.APPLICATION))
+                    .tenant(child(subj, SubjectIdentifierMembers.TENANT))
+                    .orgUnit(child(subj, SubjectIdentifierMembers.ORG_UNIT))
+                    .group(child(subj, SubjectIdentifierMembers.GROUP))
+                    .build();
+        }
+
+        private static ImmutableSubjectIdentifier child(final SubjectIdentifier subj, final SubjectIdentifierMembers member)
+                throws ParseException, SIValidationException {
+            final Object o = subj.get(member.toString());
+            if (null == o) {
+                return null;
+            }
+            if (!(o instanceof SubjectIdentifier)) {
+                throw new SIValidationException("SubjectIdentifier member " + member + " must be a Subject Identifier.");
+            }
+            return ImmutableSubjectIdentifier.of((SubjectIdentifier) o);
+        }
+
+        public ImmutableSubjectIdentifier getUser() { return user; }
+
+        public ImmutableSubjectIdentifier getDevice() { return device; }
+
+        public ImmutableSubjectIdentifier getSession() { return session; }
+
+        public ImmutableSubjectIdentifier getApplication() { return application; }
+
+        public ImmutableSubjectIdentifier getTenant() { return tenant; }
+
+        public ImmutableSubjectIdentifier getOrgUnit() { return orgUnit; }
+
+        public ImmutableSubjectIdentifier getGroup() { return group; }
+
+        @Override
+        public SubjectIdentifierFormats getFormat() { return null; }
+
+        @Override
+        int computeHashCode() {
+            return Objects.hash(user, device, session, application, tenant, orgUnit, group);
+        }
+
+        @Override
+        public SubjectIdentifier toSubjectIdentifier() {
+            final SubjectIdentifier.Builder builder = new SubjectIdentifier.Builder();
+            put(builder, SubjectIdentifierMembers.USER, user);
+            put(builder, SubjectIdentifierMembers.DEVICE, device);
+            put(builder, SubjectIdentifierMembers.SESSION, session);
+            put(builder, SubjectIdentifierMembers.APPLICATION, application);
+            put(builder, SubjectIdentifierMembers.TENANT, tenant);
+            put(builder, SubjectIdentifierMembers.ORG_UNIT, orgUnit);
+            put(builder, SubjectIdentifierMembers.GROUP, group);
+            return builder.build();
+        }
+
+        private static void put(final SubjectIdentifier.Builder builder, final SubjectIdentifierMembers member,
+                                final ImmutableSubjectIdentifier value) {
+            if (null != value) {
+                builder.member(member.toString(), value.toSubjectIdentifier());
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Complex) || hashCode() != o.hashCode()) {
+                return false;
+            }
+            final Complex other = (Complex) o;
+            return Objects.equals(user, other.user)
+                    && Objects.equals(device, other.device)
+                    && Objects.equals(session, other.session)
+                    && Objects.equals(application, other.application)
+                    && Objects.equals(tenant, other.tenant)
+                    && Objects.equals(orgUnit, other.orgUnit)
+                    && Objects.equals(group, other.group);
+        }
+
+        public static class Builder {
+
+            private ImmutableSubjectIdentifier user;
+            private ImmutableSubjectIdentifier device;
+            private ImmutableSubjectIdentifier session;
+            private ImmutableSubjectIdentifier application;
+            private ImmutableSubjectIdentifier tenant;
+            private ImmutableSubjectIdentifier orgUnit;
+            private ImmutableSubjectIdentifier group;
+
+            public Builder user(final ImmutableSubjectIdentifier user) {
+                this.user = user;
+                return this;
+            }
+
+            public Builder device(final ImmutableSubjectIdentifier device) {
+                this.device = device;
+                return this;
+            }
+
+            public Builder session(final ImmutableSubjectIdentifier session) {
+                this.session = session;
+                return this;
+            }
+
+            public Builder application(final ImmutableSubjectIdentifier application) {
+                this.application = application;
+                return this;
+            }
+
+            public Builder tenant(final ImmutableSubjectIdentifier tenant) {
+                this.tenant = tenant;
+                return this;
+            }
+
+            public Builder orgUnit(final ImmutableSubjectIdentifier orgUnit) {
+                this.orgUnit = orgUnit;
+                return this;
+            }
+
+            public Builder group(final ImmutableSubjectIdentifier group) {
+                this.group = group;
+                return this;
+            }
+
+            /**
+             * @throws IllegalStateException - if no member is set, as an empty complex Subject Identifier has no
+             * meaning
+             */
+            public Complex build() {
+                if (null == user && null == device && null == session && null == application && null == tenant
+                        && null == orgUnit && null == group) {
+                    throw new IllegalStateException("Complex Subject Identifier must have at least one member.");
+                }
+                return new Complex(this);
+            }
+        }
+    }
+}
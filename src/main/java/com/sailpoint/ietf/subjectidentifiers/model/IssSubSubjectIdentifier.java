@@ -7,14 +7,14 @@
 package com.sailpoint.ietf.subjectidentifiers.model;
 
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.text.ParseException;
-
 public class IssSubSubjectIdentifier extends SubjectIdentifier {
 
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("IssSubSubjectIdentifier")
+                    .stringOrURI(SubjectIdentifierMembers.SUBJECT.toString())
+                    .stringOrURI(SubjectIdentifierMembers.ISSUER.toString())
+                    .build();
+
     /**
      *
      * The Issuer and Subject Identifier Format identifies a subject using a pair of iss and sub members, analagous
@@ -31,38 +31,17 @@ public class IssSubSubjectIdentifier extends SubjectIdentifier {
      *       compared as case-sensitive strings with no transformations or
      *       canonicalizations applied.
      *
-     * @param member - Map key
-     * @throws SIValidationException - if value is improper per above
+     * @param result - collects the problems found if value is improper per above
      */
-    private void validateStringOrURI(final String member) throws ParseException, SIValidationException {
-        validateMemberPresentNotNullNotEmptyString(member);
-        Object o = this.get(member);
-        String s;
-        if (!((o instanceof String) || (o instanceof URI))) {
-            throw new SIValidationException("IssSubSubjectIdentifier member " + member + " must be a String or URI");
-        }
-        if (o instanceof String) {
-            s = (String) o;
-            if (s.indexOf(':') < 0) return; // No :, not a URI. Plain strings are OK.
-
-            try {
-                new URI(s);
-            } catch (URISyntaxException e) {
-                throw new SIValidationException("IssSubSubjectIdentifier member " + member + " invalid URI");
-            }
-        }
-    }
-
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-        validateStringOrURI(SubjectIdentifierMembers.SUBJECT.toString());
-        validateStringOrURI(SubjectIdentifierMembers.ISSUER.toString());
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        PLAN.validate(this, result);
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
     }
 
     public static class Builder {
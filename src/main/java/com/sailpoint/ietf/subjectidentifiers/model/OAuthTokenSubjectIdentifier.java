@@ -6,57 +6,25 @@
 
 package com.sailpoint.ietf.subjectidentifiers.model;
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.text.ParseException;
-
 public class OAuthTokenSubjectIdentifier extends SubjectIdentifier {
 
-    private static void validateSubjectIdentifierMember(final SubjectIdentifier subj, final SubjectIdentifierMembers member, final Class<?> memberCls) throws SIValidationException {
-        final Object o = subj.get(member.toString());
-        if (null == o) {
-            throw new SIValidationException(subj.getClass().getName() + " member " + member + " is missing or null.");
-        }
-        // Strings don't have contains(). So any string is valid.
-        if (memberCls == String.class) return;
-
-        // Fun with reflection to invoke contains() if the enum.name has it (and throw an exception if it does not so we can go fix it
-        Method methodToFind;
-        try {
-            methodToFind = memberCls.getMethod("contains", String.class);
-        } catch (NoSuchMethodException | SecurityException e) {
-            throw new SIValidationException(memberCls.getName() + " does not have a contains() method.");
-        }
-
-        try {
-            final Boolean present = (Boolean) methodToFind.invoke(memberCls, o.toString());
-            if (Boolean.FALSE.equals(present)) {
-                throw new SIValidationException(subj.getClass().getName() + " member " + member + " has an invalid value.");
-            }
-        } catch (IllegalAccessException e) {
-            throw new SIValidationException(subj.getClass().getName() + " member " + member + " IllegalAccessException: " + e);
-        } catch (InvocationTargetException e) {
-            throw new SIValidationException(subj.getClass().getName() + " member " + member + " InvocationTargetException: " + e);
-        }
-    }
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("OAuthTokenSubjectIdentifier")
+                    .equalTo(SubjectIdentifierMembers.SUBJECT_TYPE.toString(), SubjectIdentifierFormats.OAUTH_TOKEN.toString())
+                    .oneOf(SubjectIdentifierMembers.TOKEN_TYPE.toString(), (Object[]) OAuthTokenType.values())
+                    .oneOf(SubjectIdentifierMembers.TOKEN_IDENTIFIER_ALG.toString(), (Object[]) OAuthTokenIdentifierAlg.values())
+                    .required(SubjectIdentifierMembers.TOKEN.toString())
+                    .build();
 
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        // Do not call super.validate() as this structure predates the unified spec
-        final String subjectType = getString(SubjectIdentifierMembers.SUBJECT_TYPE);
-        if (!(SubjectIdentifierFormats.OAUTH_TOKEN.toString().equals(subjectType))) {
-            throw new SIValidationException("OAuth Token Subject Identifiers must have subject_type oauth_token.");
-        }
-        validateSubjectIdentifierMember(this, SubjectIdentifierMembers.TOKEN_TYPE, OAuthTokenType.class);
-        validateSubjectIdentifierMember(this, SubjectIdentifierMembers.TOKEN_IDENTIFIER_ALG, OAuthTokenIdentifierAlg.class);
-        validateSubjectIdentifierMember(this, SubjectIdentifierMembers.TOKEN, String.class);
-
+    protected void validateMembers(final SIValidationResult result) {
+        // Do not call super.validateMembers() as this structure predates the unified spec
+        PLAN.validate(this, result);
     }
+
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
     }
 
     public static class Builder {
@@ -7,28 +7,24 @@
 package com.sailpoint.ietf.subjectidentifiers.model;
 
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.text.ParseException;
 
 public class OpaqueSubjectIdentifier extends SubjectIdentifier {
 
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("OpaqueSubjectIdentifier")
+                    .format(SubjectIdentifierFormats.OPAQUE)
+                    .nonEmptyString(SubjectIdentifierMembers.ID.toString())
+                    .build();
+
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-        final String format = getString(SubjectIdentifierMembers.FORMAT);
-        if (!(SubjectIdentifierFormats.OPAQUE.toString().equals(format))) {
-            throw new SIValidationException("OpaqueSubjectIdentifier must have format opaque.");
-        }
-        final String id = getString(SubjectIdentifierMembers.ID);
-        if (null == id || id.isEmpty()) {
-            throw new SIValidationException("OpaqueSubjectIdentifier member id must be non-null and a non-empty String.");
-        }
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        PLAN.validate(this, result);
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
     }
 
     public static class Builder {
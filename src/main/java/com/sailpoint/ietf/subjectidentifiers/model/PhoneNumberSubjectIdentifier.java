@@ -7,12 +7,15 @@
 package com.sailpoint.ietf.subjectidentifiers.model;
 
 
-import com.nimbusds.jose.shaded.json.JSONObject;
-
-import java.text.ParseException;
 
 public class PhoneNumberSubjectIdentifier extends SubjectIdentifier {
 
+    private static final SubjectIdentifierValidationPlan PLAN =
+            new SubjectIdentifierValidationPlan.Builder("PhoneNumberSubjectIdentifier")
+                    .format(SubjectIdentifierFormats.PHONE_NUMBER)
+                    .e164(SubjectIdentifierMembers.PHONE_NUMBER.toString())
+                    .build();
+
     /**
      * The Phone Number Identifier Format identifies a subject using a telephone number. Subject Identifiers in this
      * format MUST contain a phone_number member whose value is a string containing the full telephone number of the
@@ -20,24 +23,29 @@ public class PhoneNumberSubjectIdentifier extends SubjectIdentifier {
      * REQUIRED and MUST NOT be null or empty. The Phone Number Identifier Format is identified by the name
      * phone_number.
      *
-     * @throws SIValidationException - if value is improper per above
+     * @param result - collects the problems found if value is improper per above
      */
     @Override
-    public void validate() throws ParseException, SIValidationException {
-        super.validate();
-
-        String format = this.getString(SubjectIdentifierMembers.FORMAT);
-        if (!(SubjectIdentifierFormats.PHONE_NUMBER.toString().equals(format))) {
-            throw new SIValidationException("PhoneNumberSubjectIdentifier format must be phone_number");
-        }
+    protected void validateMembers(final SIValidationResult result) {
+        super.validateMembers(result);
+        PLAN.validate(this, result);
+    }
 
-        validateMemberPresentNotNullNotEmptyString(SubjectIdentifierMembers.PHONE_NUMBER.toString());
-        // TODO: Validate that the phone number string is proper per E.164
+    /**
+     * Brings a telephone number written with the separators commonly used to group digits, such as
+     * "+1 (206) 555-0100", to the E.164 format, such as "+12065550100", so that numbers from different sources
+     * compare equal.
+     *
+     * @param phoneNumber - telephone number including the international dialing prefix
+     * @return the number in the E.164 format, or null if it cannot be brought to it by removing separators.
+     */
+    public static String normalize(final String phoneNumber) {
+        return null == phoneNumber ? null : PhoneNumberSyntax.normalize(phoneNumber);
     }
 
     @Override
-    protected void convertChildSubjects(final JSONObject subjectJO) {
-        // no op
+    protected boolean isChildSubjectMember(final String member) {
+        return false;
     }
 
     public static class Builder {
@@ -49,6 +57,16 @@ public class PhoneNumberSubjectIdentifier extends SubjectIdentifier {
             return this;
         }
 
+        /**
+         * Sets the phone number as {@link PhoneNumberSubjectIdentifier#normalize(String)} returns it, or as given if
+         * it cannot be normalized, in which case validation reports it.
+         */
+        public PhoneNumberSubjectIdentifier.Builder normalizedPhoneNumber(final String phoneNumber) {
+            final String normalized = normalize(phoneNumber);
+            members.put(SubjectIdentifierMembers.PHONE_NUMBER, null == normalized ? phoneNumber : normalized);
+            return this;
+        }
+
         public PhoneNumberSubjectIdentifier build() {
             members.put(SubjectIdentifierMembers.FORMAT, SubjectIdentifierFormats.PHONE_NUMBER.toString());
             return members;
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+/**
+ * Syntax check and normalization of telephone numbers in the E.164 format: a "+", then a country code that does not
+ * start with 0, then the national number, up to 15 digits in all. Both take a single pass over the String.
+ */
+final class PhoneNumberSyntax {
+
+    private static final int MAX_DIGITS = 15;
+
+    private PhoneNumberSyntax() {
+    }
+
+    static boolean isE164(final String s) {
+        final int length = s.length();
+        if (length < 3 || length > MAX_DIGITS + 1 || s.charAt(0) != '+' || s.charAt(1) == '0') {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return s without the separators commonly used to group digits (spaces, including no-break spaces, hyphens,
+     * dots, slashes and parentheses), if that is an E.164 number, otherwise null. s itself is returned if it has no
+     * separators.
+     */
+    static String normalize(final String s) {
+        if (isE164(s)) {
+            return s;
+        }
+        final char[] normalized = new char[MAX_DIGITS + 1];
+        int count = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (0 == count || count > MAX_DIGITS) {
+                    return null;
+                }
+                normalized[count++] = c;
+            } else if (c == '+') {
+                if (0 != count) {
+                    return null;
+                }
+                normalized[count++] = c;
+            } else if (!isSeparator(c)) {
+                return null;
+            }
+        }
+        final String result = new String(normalized, 0, count);
+        return isE164(result) ? result : null;
+    }
+
+    private static boolean isSeparator(final char c) {
+        return c == ' ' || c == '-' || c == '.' || c == '/' || c == '(' || c == ')' || c == '\u00A0';
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+/**
+ * Kinds of problem reported in a {@link SIValidationResult}.
+ */
+public enum SIValidationErrorCode {
+
+    // The format member is absent or null.
+    FORMAT_MISSING("format_missing"),
+    // The format is neither defined by specification nor begins with x-.
+    FORMAT_UNKNOWN("format_unknown"),
+    // The format does not match the Subject Identifier class.
+    FORMAT_MISMATCH("format_mismatch"),
+    // A required member is absent or null.
+    MEMBER_MISSING("member_missing"),
+    // A member is an empty String or JSON array.
+    MEMBER_EMPTY("member_empty"),
+    // A member that must be a String is not one. Thrown as a ParseException, as JSONObjectUtils does.
+    MEMBER_NOT_STRING("member_not_string"),
+    // A member has a JSON type other than String that is not allowed.
+    MEMBER_TYPE("member_type"),
+    // A member has a value of the right type that is improper, such as a malformed URI.
+    MEMBER_INVALID("member_invalid"),
+    // An Aliases Subject Identifier holds another Aliases Subject Identifier.
+    ALIASES_NESTED("aliases_nested"),
+    // Any other problem, such as one reported by a registered validator.
+    INVALID("invalid");
+
+    private final String name;
+
+    SIValidationErrorCode(final String s) {
+        name = s;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -6,8 +6,38 @@
 
 package com.sailpoint.ietf.subjectidentifiers.model;
 
+/**
+ * Thrown for an improper Subject Identifier. The exception has no stack trace, so that rejecting a flood of
+ * improper input stays cheap; use {@link SIValidationResult} to collect every problem instead of the first.
+ */
 public class SIValidationException extends Exception {
+
+    private final SIValidationErrorCode errorCode;
+    private final String path;
+
     public SIValidationException(final String message) {
-        super(message);
+        this(SIValidationErrorCode.INVALID, null, message);
+    }
+
+    /**
+     * @param errorCode - kind of problem
+     * @param path - JSON pointer to the improper member or Subject Identifier, or null if unknown
+     * @param message - description of the problem
+     */
+    public SIValidationException(final SIValidationErrorCode errorCode, final String path, final String message) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+        this.path = path;
+    }
+
+    public SIValidationErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return JSON pointer (RFC 6901) to the improper member or Subject Identifier, or null if unknown.
+     */
+    public String getPath() {
+        return path;
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every problem found by {@link SubjectIdentifier#validationResult()}, rather than only the first, each with an
+ * error code and a JSON pointer (RFC 6901) to where it was found. No exception is thrown, and the path of a
+ * problem is only built when one is reported, so that validating improper input costs little more than proper.
+ */
+public final class SIValidationResult {
+
+    /**
+     * One problem found in a Subject Identifier.
+     */
+    public static final class Problem {
+        private final SIValidationErrorCode code;
+        private final String path;
+        private final String message;
+
+        private Problem(final SIValidationErrorCode code, final String path, final String message) {
+            this.code = code;
+            this.path = path;
+            this.message = message;
+        }
+
+        public SIValidationErrorCode getCode() {
+            return code;
+        }
+
+        /**
+         * @return JSON pointer to the improper member or Subject Identifier, relative to the one validated.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return code + " at \"" + path + "\": " + message;
+        }
+    }
+
+    // Member names and array indices leading from the Subject Identifier validated to the one being validated.
+    private Object[] segments = new Object[8];
+    private int depth;
+    private List<Problem> problems;
+
+    public boolean isValid() {
+        return null == problems;
+    }
+
+    int problemCount() {
+        return null == problems ? 0 : problems.size();
+    }
+
+    /**
+     * @return the problems found, in the order found, or an empty list if there are none.
+     */
+    public List<Problem> getProblems() {
+        return null == problems ? Collections.<Problem>emptyList() : Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * Reports a problem with the Subject Identifier being validated.
+     *
+     * @param code - kind of problem
+     * @param member - name of the improper member, or null if the problem is with the Subject Identifier as a whole
+     * @param message - description of the problem
+     */
+    public void add(final SIValidationErrorCode code, final String member, final String message) {
+        if (null == problems) {
+            problems = new ArrayList<>(2);
+        }
+        problems.add(new Problem(code, pointer(member), message));
+    }
+
+    // Reports a problem thrown by a child Subject Identifier, at a JSON pointer relative to the child, if known.
+    void addAt(final SIValidationErrorCode code, final String path, final String message) {
+        if (null == problems) {
+            problems = new ArrayList<>(2);
+        }
+        problems.add(new Problem(code, null == path ? pointer(null) : pointer(null) + path, message));
+    }
+
+    /**
+     * Throws the first problem found, if any: MEMBER_NOT_STRING as a ParseException, as JSONObjectUtils would,
+     * and others as an SIValidationException. Neither has a stack trace.
+     */
+    public void throwIfInvalid() throws ParseException, SIValidationException {
+        if (null == problems) {
+            return;
+        }
+        final Problem first = problems.get(0);
+        if (first.code == SIValidationErrorCode.MEMBER_NOT_STRING) {
+            throw new StacklessParseException(first.message, 0);
+        }
+        throw new SIValidationException(first.code, first.path, first.message);
+    }
+
+    // Called around the validation of a child Subject Identifier, with its member name or array index.
+    void enter(final Object segment) {
+        if (depth == segments.length) {
+            segments = Arrays.copyOf(segments, depth * 2);
+        }
+        segments[depth++] = segment;
+    }
+
+    void exit() {
+        segments[--depth] = null;
+    }
+
+    private String pointer(final String member) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            appendSegment(sb, segments[i]);
+        }
+        if (null != member) {
+            appendSegment(sb, member);
+        }
+        return sb.toString();
+    }
+
+    private static void appendSegment(final StringBuilder sb, final Object segment) {
+        sb.append('/');
+        final String s = segment.toString();
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '~') {
+                sb.append("~0");
+            } else if (c == '/') {
+                sb.append("~1");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+
+/**
+ * ParseException without a stack trace. Improper input is expected rather than exceptional here, and filling in
+ * the stack trace would cost more than detecting the problem.
+ */
+final class StacklessParseException extends ParseException {
+
+    StacklessParseException(final String message, final int errorOffset) {
+        super(message, errorOffset);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -6,16 +6,73 @@
 
 package com.sailpoint.ietf.subjectidentifiers.model;
 
+import com.nimbusds.jose.shaded.json.JSONArray;
 import com.nimbusds.jose.shaded.json.JSONObject;
 import com.nimbusds.jose.util.JSONObjectUtils;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class SubjectIdentifier extends JSONObject {
 
+    // Counts the changes made through the Map methods, to tell whether the memoized fingerprint and validation
+    // are still current.
+    private transient int modifications;
+    private transient Fingerprint fingerprint;
+    private transient Validated validated;
+
+    // Changed whenever the rules of validation change, which makes every remembered validation stale.
+    private static final AtomicInteger VALIDATION_RULES = new AtomicInteger();
+    private static final int[] NO_CHILDREN = new int[0];
+
+    // Set while a validate() override runs as part of an operation that is reported as a whole.
+    private static final ThreadLocal<Boolean> NESTED_VALIDATION = new ThreadLocal<>();
+
+    // True for classes overriding validate(), whose override conversion and validation of parents must run.
+    private static final ClassValue<Boolean> OVERRIDES_VALIDATE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            try {
+                return SubjectIdentifier.class != type.getMethod("validate").getDeclaringClass();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    // Remembers that the members of this Subject Identifier were valid under the given rules, with the given
+    // modification counts of this Subject Identifier and of its child Subject Identifiers. Together with every
+    // child Subject Identifier being remembered as valid in turn, that makes the whole tree valid.
+    private static final class Validated {
+        private final int rules;
+        private final int modifications;
+        private final int[] children;
+
+        private Validated(final int rules, final int modifications, final int[] children) {
+            this.rules = rules;
+            this.modifications = modifications;
+            this.children = children;
+        }
+    }
+
+    // Digest together with the modification counts, in depth-first order, of this Subject Identifier and of every
+    // child Subject Identifier it held when the digest was computed. Final fields make it safe to share between
+    // threads without locking: racing threads compute the same digest.
+    private static final class Fingerprint {
+        private final byte[] digest;
+        private final int[] modifications;
+
+        private Fingerprint(final byte[] digest, final int[] modifications) {
+            this.digest = digest;
+            this.modifications = modifications;
+        }
+    }
+
     public final String getString(SubjectIdentifierMembers member) throws ParseException {
         return JSONObjectUtils.getString(this, member.toString());
     }
@@ -25,38 +82,288 @@ public class SubjectIdentifier extends JSONObject {
     }
 
     public void validateFormat() throws ParseException, SIValidationException {
-        final String format = getString(SubjectIdentifierMembers.FORMAT);
+        final SIValidationResult result = new SIValidationResult();
+        validateFormat(result);
+        result.throwIfInvalid();
+    }
+
+    protected void validateFormat(final SIValidationResult result) {
+        final String member = SubjectIdentifierMembers.FORMAT.toString();
+        final Object format = get(member);
         if (null == format) {
-            throw new SIValidationException("SubjectIdentifier member format must be present and non-null.");
+            result.add(SIValidationErrorCode.FORMAT_MISSING, member,
+                    "SubjectIdentifier member format must be present and non-null.");
+        } else if (!(format instanceof String)) {
+            result.add(SIValidationErrorCode.MEMBER_NOT_STRING, member, "SubjectIdentifier member format must be a String.");
+        } else if (!SubjectIdentifierFormats.contains((String) format) && !((String) format).startsWith("x-")) {
+            result.add(SIValidationErrorCode.FORMAT_UNKNOWN, member, "Subject Identifier member format "
+                    + "must be defined by specification or begin with x-.");
         }
-        if (SubjectIdentifierFormats.contains(format) || format.startsWith("x-")) {
+    }
+
+    /**
+     * Validates this Subject Identifier and, recursively, every child Subject Identifier it holds.
+     *
+     * A successful validation is remembered until this or a child Subject Identifier is changed through its Map
+     * methods, so validating again costs a walk over the tree comparing modification counts. Changes made in place
+     * to a JSON array, or through entrySet(), keySet() or values(), are not seen.
+     *
+     * @throws SIValidationException - if this or any child Subject Identifier is improper
+     */
+    public void validate() throws ParseException, SIValidationException {
+        final SubjectIdentifierMetricsListener listener = SubjectIdentifierMetrics.getListener();
+        final Object event = SubjectIdentifierEvents.beginValidation();
+        if ((null == listener && null == event) || Boolean.TRUE == NESTED_VALIDATION.get()) {
+            validateOrThrow();
             return;
         }
-        throw new SIValidationException("Subject Identifier member format "
-                + "must be defined by specification or begin with x-.");
+        final long start = System.nanoTime();
+        Exception error = null;
+        try {
+            validateOrThrow();
+        } catch (ParseException | SIValidationException e) {
+            error = e;
+            throw e;
+        } finally {
+            if (null != listener) {
+                SubjectIdentifierMetrics.report(listener, SubjectIdentifierMetricsListener.Operation.VALIDATE, this, start, error);
+            }
+            SubjectIdentifierEvents.endValidation(event, this, error);
+        }
     }
 
-    public void validate() throws ParseException, SIValidationException {
-        // No call to validateFormat() here because OpenID SSE Complex Subject Identifiers
-        // do not include a format member.
+    // Validates as validate(), without reporting to the metrics listener or recording an event.
+    final void validateOrThrow() throws ParseException, SIValidationException {
+        if (!isValidated()) {
+            validationResult().throwIfInvalid();
+        }
+    }
+
+    // Validates as validateOrThrow(), but runs the validate() override of subclasses that have one, without
+    // reporting it to the metrics listener or recording an event.
+    final void validateTreeOrThrow() throws ParseException, SIValidationException {
+        if (!OVERRIDES_VALIDATE.get(getClass())) {
+            validateOrThrow();
+        } else if (Boolean.TRUE == NESTED_VALIDATION.get()) {
+            validate();
+        } else {
+            NESTED_VALIDATION.set(Boolean.TRUE);
+            try {
+                validate();
+            } finally {
+                NESTED_VALIDATION.remove();
+            }
+        }
+    }
+
+    /**
+     * Validates as {@link #validate()}, but collects every problem instead of throwing the first.
+     *
+     * @return the problems of this Subject Identifier and of every child Subject Identifier it holds
+     */
+    public SIValidationResult validationResult() {
+        final SIValidationResult result = new SIValidationResult();
+        validate(result);
+        return result;
+    }
+
+    void validate(final SIValidationResult result) {
+        if (isValidated()) {
+            return;
+        }
+        final int rules = VALIDATION_RULES.get();
+        final int problems = result.problemCount();
+        validateChildSubjects(result);
+        validateMembers(result);
+        if (result.problemCount() == problems) {
+            rememberValidated(rules);
+        }
+    }
+
+    /**
+     * Makes every remembered validation stale, for when the rules change.
+     */
+    static void forgetValidations() {
+        VALIDATION_RULES.incrementAndGet();
+    }
 
+    // True if a successful validation of the whole tree is remembered and still current.
+    private boolean isValidated() {
+        final Validated current = validated;
+        if (null == current || current.rules != VALIDATION_RULES.get() || current.modifications != modifications) {
+            return false;
+        }
+        final int[] children = current.children;
+        int count = 0;
+        for (Entry<String, Object> entry : entrySet()) {
+            final Object value = entry.getValue();
+            if (value instanceof SubjectIdentifier) {
+                final SubjectIdentifier child = (SubjectIdentifier) value;
+                if (count == children.length || children[count++] != child.modifications || !child.isValidated()) {
+                    return false;
+                }
+            } else if (value instanceof JSONArray && isChildSubjectArrayMember(entry.getKey())) {
+                for (Object item : (JSONArray) value) {
+                    if (item instanceof SubjectIdentifier) {
+                        final SubjectIdentifier child = (SubjectIdentifier) item;
+                        if (count == children.length || children[count++] != child.modifications
+                                || !child.isValidated()) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return count == children.length;
+    }
+
+    // Remembers that the members are valid, as are the child Subject Identifiers, which remember so themselves.
+    private void rememberValidated(final int rules) {
+        final int count = childModifications(null);
+        final int[] children = 0 == count ? NO_CHILDREN : new int[count];
+        childModifications(children);
+        validated = new Validated(rules, modifications, children);
+    }
+
+    // Counts the child Subject Identifiers visited by validateChildSubjects(), storing their modification counts
+    // into children unless it is null.
+    private int childModifications(final int[] children) {
+        int count = 0;
+        for (Entry<String, Object> entry : entrySet()) {
+            final Object value = entry.getValue();
+            if (value instanceof SubjectIdentifier) {
+                if (null != children) {
+                    children[count] = ((SubjectIdentifier) value).modifications;
+                }
+                count++;
+            } else if (value instanceof JSONArray && isChildSubjectArrayMember(entry.getKey())) {
+                for (Object item : (JSONArray) value) {
+                    if (item instanceof SubjectIdentifier) {
+                        if (null != children) {
+                            children[count] = ((SubjectIdentifier) item).modifications;
+                        }
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Validates the child Subject Identifiers held directly by members, or inside the JSON arrays of members
+     * for which {@link #isChildSubjectArrayMember(String)} is true.
+     */
+    protected void validateChildSubjects(final SIValidationResult result) {
         // Subject Identifiers can be complex (thus recursive)
         for (Entry<String, Object> entry : entrySet()) {
-            if (entry.getValue() instanceof SubjectIdentifier) {
-                SubjectIdentifier si = (SubjectIdentifier) entry.getValue();
-                si.validate();
+            Object value = entry.getValue();
+            if (value instanceof SubjectIdentifier) {
+                result.enter(entry.getKey());
+                validateChild((SubjectIdentifier) value, result);
+                result.exit();
+            } else if (value instanceof JSONArray && isChildSubjectArrayMember(entry.getKey())) {
+                result.enter(entry.getKey());
+                final JSONArray items = (JSONArray) value;
+                for (int index = 0; index < items.size(); index++) {
+                    final Object item = items.get(index);
+                    if (item instanceof SubjectIdentifier) {
+                        result.enter(index);
+                        validateChild((SubjectIdentifier) item, result);
+                        result.exit();
+                    }
+                }
+                result.exit();
             }
         }
     }
 
+    // Validates a child, running the validate() override of its class if it has one, as the parent's validate() always
+    // has, unless a successful validation of the child is remembered. Only the first problem an override finds is
+    // reported.
+    private static void validateChild(final SubjectIdentifier child, final SIValidationResult result) {
+        if (!OVERRIDES_VALIDATE.get(child.getClass())) {
+            child.validate(result);
+            return;
+        }
+        if (child.isValidated()) {
+            return;
+        }
+        try {
+            child.validateTreeOrThrow();
+        } catch (SIValidationException e) {
+            result.addAt(e.getErrorCode(), e.getPath(), e.getMessage());
+        } catch (ParseException e) {
+            result.addAt(SIValidationErrorCode.MEMBER_NOT_STRING, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Validates the members of this Subject Identifier without descending into child Subject Identifiers.
+     * Subclasses override this, calling super.validateMembers(result), to add the checks of their format.
+     */
+    protected void validateMembers(final SIValidationResult result) {
+        // No call to validateFormat() here because OpenID SSE Complex Subject Identifiers
+        // do not include a format member.
+        SubjectIdentifierFormatRegistry.validate(this, result);
+    }
+
+    // Validates the members only, throwing the first problem, for callers that have validated the children already.
+    // Subclasses overriding validate() rather than validateMembers() have it called instead, as conversion always
+    // has; the children it validates again are remembered, so only the members are checked.
+    final void validateMembersOrThrow() throws ParseException, SIValidationException {
+        if (OVERRIDES_VALIDATE.get(getClass())) {
+            validateTreeOrThrow();
+            return;
+        }
+        final int rules = VALIDATION_RULES.get();
+        final SIValidationResult result = new SIValidationResult();
+        validateMembers(result);
+        result.throwIfInvalid();
+        rememberValidated(rules);
+    }
+
     protected void validateMemberPresentNotNullNotEmptyString(final String member) throws ParseException, SIValidationException {
-        String s = JSONObjectUtils.getString(this, member);
-        if (null == s) {
-            throw new SIValidationException("SubjectIdentifier member " + member + " must not be null.");
+        final SIValidationResult result = new SIValidationResult();
+        validateMemberPresentNotNullNotEmptyString(result, member);
+        result.throwIfInvalid();
+    }
+
+    /**
+     * @return true if the member is a non-empty String, otherwise reports why not and returns false.
+     */
+    protected boolean validateMemberPresentNotNullNotEmptyString(final SIValidationResult result, final String member) {
+        final Object o = get(member);
+        if (null == o) {
+            result.add(SIValidationErrorCode.MEMBER_MISSING, member, "SubjectIdentifier member " + member + " must not be null.");
+            return false;
+        }
+        if (!(o instanceof String)) {
+            result.add(SIValidationErrorCode.MEMBER_NOT_STRING, member, "SubjectIdentifier member " + member + " must be a String.");
+            return false;
         }
-        if (s.isEmpty()) {
-            throw new SIValidationException("SubjectIdentifier member " + member + " must not be an empty String.");
+        if (((String) o).isEmpty()) {
+            result.add(SIValidationErrorCode.MEMBER_EMPTY, member, "SubjectIdentifier member " + member + " must not be an empty String.");
+            return false;
         }
+        return true;
+    }
+
+    /**
+     * @param member - member name
+     * @return true if a JSON object held directly by the member is a child Subject Identifier, as in complex
+     * Subject Identifiers. Formats without child Subject Identifiers override this to return false.
+     */
+    protected boolean isChildSubjectMember(final String member) {
+        return true;
+    }
+
+    /**
+     * @param member - member name
+     * @return true if the JSON objects inside a JSON array held by the member are child Subject Identifiers.
+     */
+    protected boolean isChildSubjectArrayMember(final String member) {
+        return false;
     }
 
     protected void convertChildSubjects(final JSONObject subjectJO) throws ParseException, SIValidationException {
@@ -64,50 +371,287 @@ public class SubjectIdentifier extends JSONObject {
         for (Map.Entry<String, Object> entry : subjectJO.entrySet()) {
             String k = entry.getKey();
             Object value = entry.getValue();
-            if (value instanceof JSONObject) {
-                this.put(k, convertSubjects((JSONObject) value));
+            if (value instanceof JSONObject && isChildSubjectMember(k)) {
+                this.put(k, convert((JSONObject) value));
+            } else if (value instanceof JSONArray && isChildSubjectArrayMember(k)) {
+                // Items in this array are other subject identifiers
+                // Convert each of them into a copy, leaving the array of the input untouched.
+                final JSONArray source = (JSONArray) value;
+                final JSONArray items = new JSONArray();
+                final Object event = SubjectIdentifierEvents.beginAliases();
+                Exception error = null;
+                try {
+                    for (Object item : source) {
+                        items.add(item instanceof JSONObject ? convert((JSONObject) item) : item);
+                    }
+                } catch (ParseException | SIValidationException e) {
+                    error = e;
+                    throw e;
+                } finally {
+                    SubjectIdentifierEvents.endAliases(event, source.size(), error);
+                }
+                this.put(k, items);
             }
         }
     }
 
-    private static SubjectIdentifier constructSubjectIdentifier(final JSONObject subjectJO) throws SIValidationException {
-        SubjectIdentifierFormats format;
-        String formatName = (String) subjectJO.get(SubjectIdentifierMembers.FORMAT.toString());
+    private static SubjectIdentifier constructSubjectIdentifier(final JSONObject subjectJO) {
+        final Object formatName = subjectJO.get(SubjectIdentifierMembers.FORMAT.toString());
+        // No format member, no registered format, or no specialized class for that format
+        // all yield a base SubjectIdentifier.
+        return SubjectIdentifierFormatRegistry.newSubjectIdentifier(formatName instanceof String ? (String) formatName : null);
+    }
 
-        if (null == formatName
-                || null == (format = SubjectIdentifierFormats.enumByName(formatName))
-                || null == format.getCls()) {
-            // No format member, no standardized format, or no specialized class for that format.
-            // Return a base SubjectIdentifier.
-            return new SubjectIdentifier();
-        }
+    /**
+     * Converts a JSON object into a tree of Subject Identifiers of the classes registered for their formats, and
+     * validates it. Each Subject Identifier is validated once, as it is converted: child Subject Identifiers are
+     * complete and valid before the members of their parent are checked.
+     */
+    public static SubjectIdentifier convertSubjects(final JSONObject subjectJO) throws ParseException, SIValidationException {
+        if (null == subjectJO) { return null; }
+        return convertReported(subjectJO, null);
+    }
 
-        Class<? extends SubjectIdentifier> cls = format.getCls();
-        Constructor<? extends SubjectIdentifier> ctor;
+    // Converts as convertSubjects(), taking the children of convertedChildren as converted already, such as those a
+    // SubjectIdentifierView has converted.
+    static SubjectIdentifier convertSubjects(final JSONObject subjectJO, final Map<String, Object> convertedChildren)
+            throws ParseException, SIValidationException {
+        return convertReported(subjectJO, convertedChildren);
+    }
 
-        try {
-            ctor = cls.getConstructor();
-        } catch (NoSuchMethodException e) {
-            throw new SIValidationException("Cannot find a constructor() for " + cls.getName());
+    private static SubjectIdentifier convertReported(final JSONObject subjectJO, final Map<String, Object> convertedChildren)
+            throws ParseException, SIValidationException {
+        final SubjectIdentifierMetricsListener listener = SubjectIdentifierMetrics.getListener();
+        final Object event = SubjectIdentifierEvents.beginConversion();
+        if (null == listener && null == event) {
+            return convert(subjectJO, convertedChildren);
         }
-
+        final long start = System.nanoTime();
+        Exception error = null;
         try {
-            return ctor.newInstance();
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new SIValidationException("Cannot instantiate SubjectIdentifier subclass");
+            return convert(subjectJO, convertedChildren);
+        } catch (ParseException | SIValidationException e) {
+            error = e;
+            throw e;
+        } finally {
+            if (null != listener) {
+                SubjectIdentifierMetrics.report(listener, SubjectIdentifierMetricsListener.Operation.CONVERT, subjectJO, start, error);
+            }
+            SubjectIdentifierEvents.endConversion(event, subjectJO, error);
         }
     }
 
-    public static SubjectIdentifier convertSubjects(final JSONObject subjectJO) throws ParseException, SIValidationException {
-        if (null == subjectJO) { return null; }
-
+    // Converts as convertSubjects(), without reporting to the metrics listener or recording an event.
+    private static SubjectIdentifier convert(final JSONObject subjectJO) throws ParseException, SIValidationException {
         SubjectIdentifier subj = constructSubjectIdentifier(subjectJO);
         subj.merge(subjectJO);
         subj.convertChildSubjects(subjectJO);
-        subj.validate();
+        subj.validateMembersOrThrow();
         return subj;
     }
 
+    // Converts as convert(), but adopts the converted children given for child subject members, by member name: a
+    // SubjectIdentifier, or a List of them for members holding arrays.
+    private static SubjectIdentifier convert(final JSONObject subjectJO, final Map<String, Object> convertedChildren)
+            throws ParseException, SIValidationException {
+        if (null == convertedChildren || convertedChildren.isEmpty()) {
+            return convert(subjectJO);
+        }
+        final SubjectIdentifier subj = constructSubjectIdentifier(subjectJO);
+        subj.merge(subjectJO);
+        final JSONObject remaining = new JSONObject(subjectJO);
+        for (Map.Entry<String, Object> entry : convertedChildren.entrySet()) {
+            final String member = entry.getKey();
+            final Object child = entry.getValue();
+            if (child instanceof SubjectIdentifier && subj.isChildSubjectMember(member)) {
+                subj.put(member, child);
+                remaining.remove(member);
+            } else if (child instanceof List && subj.isChildSubjectArrayMember(member)) {
+                final JSONArray items = new JSONArray();
+                items.addAll((List<?>) child);
+                subj.put(member, items);
+                remaining.remove(member);
+            }
+        }
+        subj.convertChildSubjects(remaining);
+        subj.validateMembersOrThrow();
+        return subj;
+    }
+
+    /**
+     * Adopts a map of members, such as a claim of a JWTClaimsSet, without copying it or converting its children.
+     * Children are converted when first requested from the returned view.
+     *
+     * @see SubjectIdentifierView
+     */
+    public static SubjectIdentifierView adopt(final Map<String, Object> subject) {
+        return SubjectIdentifierView.adopt(subject);
+    }
+
+    /**
+     * Converts as {@link #convertSubjects(JSONObject)}, but returns the instance shared through the interner when
+     * one with the same content has been converted before. Conversion and validation are skipped in that case.
+     * Shared instances must not be modified. They hold no array of the input, which the caller remains free to
+     * change.
+     */
+    public static SubjectIdentifier convertSubjects(final JSONObject subjectJO, final SubjectIdentifierInterner interner)
+            throws ParseException, SIValidationException {
+        if (null == subjectJO) { return null; }
+
+        final SubjectIdentifier shared = interner.get(subjectJO);
+        if (null != shared) {
+            return shared;
+        }
+        return interner.intern(convertSubjects(subjectJO));
+    }
+
+    /**
+     * @return the SHA-256 digest of the canonical form of this Subject Identifier, as computed by
+     * {@link SubjectIdentifierWriter#fingerprint(Map)}: equal for trees that differ only in member or alias order.
+     * The digest is memoized, and computed again once this or any child Subject Identifier has been changed through
+     * its Map methods. Changes made in place to a JSON array, or through entrySet(), keySet() or values(), are not
+     * seen.
+     */
+    public byte[] fingerprint() {
+        Fingerprint current = fingerprint;
+        if (null == current || !isUnmodifiedSince(current.modifications)) {
+            final List<SubjectIdentifier> subjects = new ArrayList<>();
+            collectSubjects(this, subjects);
+            final int[] counts = new int[subjects.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = subjects.get(i).modifications;
+            }
+            current = new Fingerprint(new SubjectIdentifierWriter().fingerprint(this), counts);
+            fingerprint = current;
+        }
+        return current.digest.clone();
+    }
+
+    private boolean isUnmodifiedSince(final int[] counts) {
+        return counts.length == matchModifications(this, counts, 0);
+    }
+
+    // Compares the modification counts of subj and its child Subject Identifiers, depth first, with counts from
+    // index on. Returns the index following the last one compared, or -1 on the first difference.
+    private static int matchModifications(final SubjectIdentifier subj, final int[] counts, final int index) {
+        if (index >= counts.length || subj.modifications != counts[index]) {
+            return -1;
+        }
+        int next = index + 1;
+        for (Object value : subj.values()) {
+            if (value instanceof SubjectIdentifier) {
+                next = matchModifications((SubjectIdentifier) value, counts, next);
+            } else if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    if (next >= 0 && item instanceof SubjectIdentifier) {
+                        next = matchModifications((SubjectIdentifier) item, counts, next);
+                    }
+                }
+            }
+            if (next < 0) {
+                return -1;
+            }
+        }
+        return next;
+    }
+
+    // Lists subj and its child Subject Identifiers depth first. Unless one of them has been changed, the same ones
+    // are listed in the same order every time.
+    private static void collectSubjects(final SubjectIdentifier subj, final List<SubjectIdentifier> subjects) {
+        subjects.add(subj);
+        for (Object value : subj.values()) {
+            if (value instanceof SubjectIdentifier) {
+                collectSubjects((SubjectIdentifier) value, subjects);
+            } else if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    if (item instanceof SubjectIdentifier) {
+                        collectSubjects((SubjectIdentifier) item, subjects);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        modifications++;
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ?> m) {
+        modifications++;
+        super.putAll(m);
+    }
+
+    @Override
+    public Object putIfAbsent(final String key, final Object value) {
+        modifications++;
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        modifications++;
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        modifications++;
+        return super.remove(key, value);
+    }
+
+    @Override
+    public Object replace(final String key, final Object value) {
+        modifications++;
+        return super.replace(key, value);
+    }
+
+    @Override
+    public boolean replace(final String key, final Object oldValue, final Object newValue) {
+        modifications++;
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public void replaceAll(final BiFunction<? super String, ? super Object, ?> function) {
+        modifications++;
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object computeIfAbsent(final String key, final Function<? super String, ?> mappingFunction) {
+        modifications++;
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(final String key,
+                                   final BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        modifications++;
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(final String key, final BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        modifications++;
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(final String key, final Object value,
+                        final BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        modifications++;
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void clear() {
+        modifications++;
+        super.clear();
+    }
+
     public static class Builder {
 
         private final SubjectIdentifier members = new SubjectIdentifier();
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts and validates batches of JSON objects, such as the subjects of a batch of Security Event Tokens, as
+ * {@link SubjectIdentifier#convertSubjects(JSONObject)} does for one, spreading the work over a pool of threads and
+ * the calling thread. Results are returned in the order of the batch, with a success or failure for each element,
+ * so that one improper subject does not fail the rest.
+ *
+ * The pool is either a ForkJoinPool of the given parallelism, owned by the converter and shut down by
+ * {@link #close()}, or any Executor supplied by the caller, such as one running each task in a virtual thread.
+ */
+public final class SubjectIdentifierBatchConverter implements AutoCloseable {
+
+    // Tasks per thread, so that threads finishing early pick up the work of slower ones.
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Outcome of converting one element of a batch: either the Subject Identifier or the reason it is improper.
+     */
+    public static final class Result {
+        private final SubjectIdentifier subject;
+        private final Exception error;
+
+        private Result(final SubjectIdentifier subject, final Exception error) {
+            this.subject = subject;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return null == error;
+        }
+
+        /**
+         * @return the converted Subject Identifier, or null if conversion failed or the element was null.
+         */
+        public SubjectIdentifier getSubject() {
+            return subject;
+        }
+
+        /**
+         * @return the ParseException or SIValidationException raised by the element, or the RuntimeException
+         * raised converting it, such as by the factory of a registered format, or null if it succeeded.
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    private final Executor executor;
+    private final int parallelism;
+    private final ForkJoinPool ownedPool;
+
+    /**
+     * Converts on a ForkJoinPool with one thread per available processor.
+     */
+    public SubjectIdentifierBatchConverter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Converts on a ForkJoinPool owned by this converter.
+     *
+     * @param parallelism - number of threads converting in parallel
+     */
+    public SubjectIdentifierBatchConverter(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, not " + parallelism);
+        }
+        this.ownedPool = new ForkJoinPool(parallelism);
+        this.executor = ownedPool;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Converts on an Executor owned by the caller, which {@link #close()} leaves running.
+     *
+     * @param executor - executor running conversion tasks
+     * @param parallelism - number of threads expected to run tasks in parallel, used to split batches
+     */
+    public SubjectIdentifierBatchConverter(final Executor executor, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, not " + parallelism);
+        }
+        this.ownedPool = null;
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param batch - JSON objects to convert
+     * @return one result per element of batch, in the same order
+     */
+    public List<Result> convert(final JSONObject[] batch) {
+        return convert(Arrays.asList(batch));
+    }
+
+    /**
+     * @param batch - JSON objects to convert
+     * @return one result per element of batch, in the same order
+     */
+    public List<Result> convert(final List<JSONObject> batch) {
+        final int size = batch.size();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        final Result[] results = new Result[size];
+        final int tasks = Math.min(size, parallelism * TASKS_PER_THREAD);
+        if (tasks == 1) {
+            convertRange(batch, results, 0, size);
+            return Collections.unmodifiableList(Arrays.asList(results));
+        }
+
+        final Chunks chunks = new Chunks(batch, results, tasks);
+        // One pool task fewer than chunks, as the calling thread converts chunks too.
+        for (int task = 1; task < tasks; task++) {
+            try {
+                executor.execute(chunks::run);
+            } catch (RejectedExecutionException e) {
+                // Saturated or shut down: the calling thread converts the chunks no task claims.
+                break;
+            }
+        }
+        chunks.run();
+        chunks.await();
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    // Chunks of a batch, claimed in turn by the pool tasks and the calling thread. The caller only waits for chunks
+    // claimed by threads that are running, never for tasks still queued on the executor, so that converting on an
+    // executor whose threads are all busy, or from one of its own threads, cannot deadlock.
+    private static final class Chunks {
+        private final List<JSONObject> batch;
+        private final Result[] results;
+        private final int count;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Chunks(final List<JSONObject> batch, final Result[] results, final int count) {
+            this.batch = batch;
+            this.results = results;
+            this.count = count;
+            this.remaining = new AtomicInteger(count);
+        }
+
+        private void run() {
+            try {
+                int chunk;
+                while ((chunk = next.getAndIncrement()) < count) {
+                    final int size = batch.size();
+                    convertRange(batch, results, (int) ((long) size * chunk / count),
+                            (int) ((long) size * (chunk + 1) / count));
+                    if (remaining.decrementAndGet() == 0) {
+                        done.complete(null);
+                    }
+                }
+            } catch (Error e) {
+                // Only errors escape convertRange(); hand them to the caller.
+                done.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        private void await() {
+            try {
+                done.join();
+            } catch (CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static void convertRange(final List<JSONObject> batch, final Result[] results, final int from, final int to) {
+        for (int index = from; index < to; index++) {
+            try {
+                results[index] = new Result(SubjectIdentifier.convertSubjects(batch.get(index)), null);
+            } catch (ParseException | SIValidationException | RuntimeException e) {
+                // A bug in the code converting one element, such as a registered factory, fails that element only.
+                results[index] = new Result(null, e);
+            }
+        }
+    }
+
+    /**
+     * Shuts down the ForkJoinPool owned by this converter, if any.
+     */
+    @Override
+    public void close() {
+        if (null != ownedPool) {
+            ownedPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONArray;
+import com.nimbusds.jose.shaded.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes Subject Identifiers as CBOR (RFC 8949) and decodes them back, as a compact alternative to JSON text for
+ * storing subjects and shipping them between nodes.
+ *
+ * Member names defined in {@link SubjectIdentifierMembers} are written as small unsigned integer map keys, and
+ * format names defined in {@link SubjectIdentifierFormats} as small unsigned integers under the tag
+ * {@link #FORMAT_NAME_TAG}; both take a single byte. Other names and values are written as text. The format member
+ * is written first, so that the decoder creates the Subject Identifier class registered for the format before
+ * reading the other members, as {@link SubjectIdentifierParser} does, and validates each Subject Identifier once.
+ *
+ * Decoding yields what {@link SubjectIdentifier#convertSubjects(JSONObject)} yields for the JSON form: integers as
+ * Long, or BigInteger when too large, and floating point numbers as Double.
+ *
+ * The encoder reuses its buffer between calls. Instances are therefore not thread-safe; use one per thread.
+ */
+public final class SubjectIdentifierCbor {
+
+    /**
+     * CBOR tag marking an unsigned integer as the code of a format name.
+     */
+    public static final int FORMAT_NAME_TAG = 1647;
+
+    // Codes of known member names and format names. Encoded data depends on these: only ever append.
+    private static final SubjectIdentifierMembers[] MEMBER_CODES = {
+            SubjectIdentifierMembers.FORMAT,
+            SubjectIdentifierMembers.ISSUER,
+            SubjectIdentifierMembers.SUBJECT,
+            SubjectIdentifierMembers.EMAIL,
+            SubjectIdentifierMembers.PHONE_NUMBER,
+            SubjectIdentifierMembers.JWT_ID,
+            SubjectIdentifierMembers.SAML_ISSUER,
+            SubjectIdentifierMembers.SAML_ASSERTION_ID,
+            SubjectIdentifierMembers.USER,
+            SubjectIdentifierMembers.DEVICE,
+            SubjectIdentifierMembers.SESSION,
+            SubjectIdentifierMembers.APPLICATION,
+            SubjectIdentifierMembers.TENANT,
+            SubjectIdentifierMembers.ORG_UNIT,
+            SubjectIdentifierMembers.GROUP,
+            SubjectIdentifierMembers.ID,
+            SubjectIdentifierMembers.IDENTIFIERS,
+            SubjectIdentifierMembers.SUBJECT_TYPE,
+            SubjectIdentifierMembers.TOKEN_TYPE,
+            SubjectIdentifierMembers.TOKEN_IDENTIFIER_ALG,
+            SubjectIdentifierMembers.TOKEN,
+            SubjectIdentifierMembers.URL,
+            SubjectIdentifierMembers.URI
+    };
+    private static final SubjectIdentifierFormats[] FORMAT_CODES = {
+            SubjectIdentifierFormats.ACCOUNT,
+            SubjectIdentifierFormats.EMAIL,
+            SubjectIdentifierFormats.PHONE_NUMBER,
+            SubjectIdentifierFormats.ISSUER_SUBJECT,
+            SubjectIdentifierFormats.ALIASES,
+            SubjectIdentifierFormats.JWT_ID,
+            SubjectIdentifierFormats.SAML_ASSERTION_ID,
+            SubjectIdentifierFormats.OPAQUE,
+            SubjectIdentifierFormats.OAUTH_TOKEN,
+            SubjectIdentifierFormats.DID
+    };
+
+    private static final String FORMAT = SubjectIdentifierMembers.FORMAT.toString();
+    private static final Map<String, Integer> MEMBER_CODE_BY_NAME = new HashMap<>();
+    private static final Map<String, Integer> FORMAT_CODE_BY_NAME = new HashMap<>();
+    private static final String[] MEMBER_NAMES = new String[MEMBER_CODES.length];
+    private static final String[] FORMAT_NAMES = new String[FORMAT_CODES.length];
+
+    static {
+        for (int code = 0; code < MEMBER_CODES.length; code++) {
+            MEMBER_NAMES[code] = MEMBER_CODES[code].toString();
+            MEMBER_CODE_BY_NAME.put(MEMBER_NAMES[code], code);
+        }
+        for (int code = 0; code < FORMAT_CODES.length; code++) {
+            FORMAT_NAMES[code] = FORMAT_CODES[code].toString();
+            FORMAT_CODE_BY_NAME.put(FORMAT_NAMES[code], code);
+        }
+    }
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int MAJOR_TAG = 6;
+    private static final int MAJOR_SIMPLE = 7;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+
+    private static final int FALSE = 0xF4;
+    private static final int TRUE = 0xF5;
+    private static final int NULL = 0xF6;
+    private static final int HALF_FLOAT = 0xF9;
+    private static final int SINGLE_FLOAT = 0xFA;
+    private static final int DOUBLE_FLOAT = 0xFB;
+
+    // Guards both directions against stack exhaustion from cyclic maps or hostile input.
+    private static final int MAX_DEPTH = 256;
+
+    private byte[] out = new byte[256];
+    private int outPos;
+
+    private byte[] in;
+    private int inStart;
+    private int inPos;
+    private int inEnd;
+
+    public byte[] encode(final Map<String, Object> subj) {
+        encodeToBuffer(subj);
+        return Arrays.copyOf(out, outPos);
+    }
+
+    /**
+     * Writes the encoding of subj to the stream, which is neither flushed nor closed.
+     */
+    public void encode(final Map<String, Object> subj, final OutputStream stream) throws IOException {
+        encodeToBuffer(subj);
+        stream.write(out, 0, outPos);
+    }
+
+    /**
+     * Writes the encoding of subj to the buffer, starting at its position, and advances the position past it.
+     *
+     * @throws java.nio.BufferOverflowException - if the remaining space is too small, in which case the buffer
+     * is left unchanged
+     */
+    public void encode(final Map<String, Object> subj, final ByteBuffer buffer) {
+        encodeToBuffer(subj);
+        buffer.put(out, 0, outPos);
+    }
+
+    public SubjectIdentifier decode(final byte[] bytes) throws ParseException, SIValidationException {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    public SubjectIdentifier decode(final byte[] bytes, final int offset, final int length)
+            throws ParseException, SIValidationException {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        in = bytes;
+        inStart = offset;
+        inPos = offset;
+        inEnd = offset + length;
+        try {
+            if (inPos >= inEnd || (in[inPos] & 0xFF) >> 5 != MAJOR_MAP) {
+                throw error("Subject Identifier must be a CBOR map");
+            }
+            final SubjectIdentifier subj = decodeSubject(0);
+            if (inPos != inEnd) {
+                throw error("Unexpected data after Subject Identifier");
+            }
+            return subj;
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * Decodes the remaining bytes of the buffer without changing its position.
+     */
+    public SubjectIdentifier decode(final ByteBuffer buffer) throws ParseException, SIValidationException {
+        final int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.duplicate().get(bytes);
+        return decode(bytes);
+    }
+
+    // ---- Encoding
+
+    private void encodeToBuffer(final Map<String, Object> subj) {
+        outPos = 0;
+        writeMap(subj, 0);
+    }
+
+    private void writeMap(final Map<?, ?> map, final int depth) {
+        checkEncodeDepth(depth);
+        writeHead(MAJOR_MAP, map.size());
+        // The format member goes first, so that the decoder knows the class before the other members.
+        final boolean hasFormat = map.containsKey(FORMAT);
+        if (hasFormat) {
+            writeHead(MAJOR_UNSIGNED, MEMBER_CODE_BY_NAME.get(FORMAT));
+            writeValue(map.get(FORMAT), depth + 1);
+        }
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            final String name = String.valueOf(entry.getKey());
+            if (hasFormat && FORMAT.equals(name)) {
+                continue;
+            }
+            final Integer code = MEMBER_CODE_BY_NAME.get(name);
+            if (null != code) {
+                writeHead(MAJOR_UNSIGNED, code);
+            } else {
+                writeText(name);
+            }
+            writeValue(entry.getValue(), depth + 1);
+        }
+    }
+
+    private void writeValue(final Object value, final int depth) {
+        if (value instanceof String) {
+            final Integer code = FORMAT_CODE_BY_NAME.get(value);
+            if (null != code) {
+                writeHead(MAJOR_TAG, FORMAT_NAME_TAG);
+                writeHead(MAJOR_UNSIGNED, code);
+            } else {
+                writeText((String) value);
+            }
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, depth);
+        } else if (value instanceof List) {
+            checkEncodeDepth(depth);
+            final List<?> list = (List<?>) value;
+            writeHead(MAJOR_ARRAY, list.size());
+            for (Object item : list) {
+                writeValue(item, depth + 1);
+            }
+        } else if (null == value) {
+            writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeByte(DOUBLE_FLOAT);
+            final long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out[outPos++] = (byte) (bits >>> shift);
+            }
+        } else if (value instanceof BigInteger) {
+            writeBigInteger((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            final BigDecimal decimal = (BigDecimal) value;
+            writeHead(MAJOR_TAG, TAG_DECIMAL_FRACTION);
+            writeHead(MAJOR_ARRAY, 2);
+            writeLong(-decimal.scale());
+            writeBigInteger(decimal.unscaledValue());
+        } else {
+            // URIs, enum constants and anything else are written as the String of their value, as in JSON.
+            writeText(value.toString());
+        }
+    }
+
+    private void writeLong(final long value) {
+        if (value >= 0) {
+            writeHead(MAJOR_UNSIGNED, value);
+        } else {
+            writeHead(MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    private void writeBigInteger(final BigInteger value) {
+        if (value.bitLength() < 64) {
+            writeLong(value.longValue());
+            return;
+        }
+        final boolean negative = value.signum() < 0;
+        // Negative bignums hold -1 - n, as negative integers do.
+        byte[] magnitude = (negative ? BigInteger.ONE.negate().subtract(value) : value).toByteArray();
+        if (magnitude[0] == 0) {
+            magnitude = Arrays.copyOfRange(magnitude, 1, magnitude.length);
+        }
+        writeHead(MAJOR_TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM);
+        writeHead(MAJOR_BYTES, magnitude.length);
+        writeBytes(magnitude);
+    }
+
+    private void writeText(final String s) {
+        final int length = s.length();
+        if (length < 24) {
+            // Short ASCII text, such as most names and values, is copied without encoding it first.
+            ensureCapacity(length + 1);
+            final int start = outPos;
+            out[outPos++] = (byte) ((MAJOR_TEXT << 5) | length);
+            int i = 0;
+            while (i < length && s.charAt(i) < 0x80) {
+                out[outPos++] = (byte) s.charAt(i++);
+            }
+            if (i == length) {
+                return;
+            }
+            outPos = start;
+        }
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeHead(MAJOR_TEXT, bytes.length);
+        writeBytes(bytes);
+    }
+
+    // Initial byte and argument, in the shortest form.
+    private void writeHead(final int major, final long argument) {
+        ensureCapacity(9);
+        final int type = major << 5;
+        if (argument < 24) {
+            out[outPos++] = (byte) (type | argument);
+        } else if (argument < 0x100) {
+            out[outPos++] = (byte) (type | 24);
+            out[outPos++] = (byte) argument;
+        } else if (argument < 0x10000) {
+            out[outPos++] = (byte) (type | 25);
+            out[outPos++] = (byte) (argument >> 8);
+            out[outPos++] = (byte) argument;
+        } else if (argument < 0x100000000L) {
+            out[outPos++] = (byte) (type | 26);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out[outPos++] = (byte) (argument >> shift);
+            }
+        } else {
+            out[outPos++] = (byte) (type | 27);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out[outPos++] = (byte) (argument >>> shift);
+            }
+        }
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, out, outPos, bytes.length);
+        outPos += bytes.length;
+    }
+
+    private void writeByte(final int b) {
+        ensureCapacity(1);
+        out[outPos++] = (byte) b;
+    }
+
+    private void ensureCapacity(final int needed) {
+        if (outPos + needed > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, outPos + needed));
+        }
+    }
+
+    private static void checkEncodeDepth(final int depth) {
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalArgumentException("Subject Identifier nested deeper than " + MAX_DEPTH);
+        }
+    }
+
+    // ---- Decoding
+
+    private SubjectIdentifier decodeSubject(final int depth) throws ParseException, SIValidationException {
+        checkDecodeDepth(depth);
+        final int mapStart = inPos;
+        final int size = readLength(MAJOR_MAP);
+        if (size == 0) {
+            return SubjectIdentifierFormatRegistry.newSubjectIdentifier(null);
+        }
+        final int firstMember = inPos;
+        SubjectIdentifier subj = null;
+        int decoded = 0;
+        if (FORMAT.equals(readName())) {
+            final Object format = decodeValue(false, false, depth + 1);
+            if (format instanceof String) {
+                subj = SubjectIdentifierFormatRegistry.newSubjectIdentifier((String) format);
+                subj.put(FORMAT, format);
+                decoded = 1;
+            }
+        } else {
+            // No format, as for complex Subject Identifiers, unless a foreign encoder put it later.
+            subj = SubjectIdentifierFormatRegistry.newSubjectIdentifier(null);
+            inPos = firstMember;
+        }
+        for (int i = decoded; i < size && null != subj; i++) {
+            final String name = readName();
+            if (FORMAT.equals(name)) {
+                subj = null;
+            } else {
+                subj.put(name, decodeValue(subj.isChildSubjectMember(name), subj.isChildSubjectArrayMember(name), depth + 1));
+            }
+        }
+        if (null == subj) {
+            // Not written by this encoder, which puts a String format first: decode as plain JSON and convert.
+            inPos = mapStart;
+            return SubjectIdentifier.convertSubjects((JSONObject) decodeValue(false, false, depth));
+        }
+        // Child Subject Identifiers have been validated as they were decoded, so only the members remain.
+        subj.validateMembersOrThrow();
+        return subj;
+    }
+
+    private String readName() throws ParseException {
+        final int major = peekMajor();
+        if (major == MAJOR_UNSIGNED) {
+            final long code = readArgument();
+            if (code >= MEMBER_NAMES.length) {
+                throw error("Unknown member code " + code);
+            }
+            return MEMBER_NAMES[(int) code];
+        }
+        if (major == MAJOR_TEXT) {
+            return readText();
+        }
+        throw error("Member name must be a member code or text");
+    }
+
+    private Object decodeValue(final boolean childSubject, final boolean childSubjectArray, final int depth)
+            throws ParseException, SIValidationException {
+        final int initial = peekByte();
+        switch (initial >> 5) {
+            case MAJOR_UNSIGNED: {
+                final long argument = readArgument();
+                return argument >= 0 ? (Object) argument : unsignedToBigInteger(argument);
+            }
+            case MAJOR_NEGATIVE: {
+                final long argument = readArgument();
+                return argument >= 0 ? (Object) (-1 - argument)
+                        : BigInteger.ONE.negate().subtract(unsignedToBigInteger(argument));
+            }
+            case MAJOR_TEXT:
+                return readText();
+            case MAJOR_ARRAY: {
+                checkDecodeDepth(depth);
+                final int size = readLength(MAJOR_ARRAY);
+                final JSONArray array = new JSONArray();
+                for (int i = 0; i < size; i++) {
+                    array.add(childSubjectArray && peekMajor() == MAJOR_MAP
+                            ? decodeSubject(depth + 1) : decodeValue(false, false, depth + 1));
+                }
+                return array;
+            }
+            case MAJOR_MAP: {
+                if (childSubject) {
+                    return decodeSubject(depth);
+                }
+                checkDecodeDepth(depth);
+                final int size = readLength(MAJOR_MAP);
+                final JSONObject object = new JSONObject();
+                for (int i = 0; i < size; i++) {
+                    final String name = readName();
+                    object.put(name, decodeValue(false, false, depth + 1));
+                }
+                return object;
+            }
+            case MAJOR_TAG:
+                return decodeTagged();
+            case MAJOR_SIMPLE:
+                return decodeSimple();
+            default:
+                throw error("Byte strings are not supported outside of bignums");
+        }
+    }
+
+    private Object decodeTagged() throws ParseException {
+        final long tag = readArgument();
+        if (tag == FORMAT_NAME_TAG) {
+            if (peekMajor() != MAJOR_UNSIGNED) {
+                throw error("Format code must be an unsigned integer");
+            }
+            final long code = readArgument();
+            if (code < 0 || code >= FORMAT_NAMES.length) {
+                throw error("Unknown format code " + code);
+            }
+            return FORMAT_NAMES[(int) code];
+        }
+        if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+            final BigInteger magnitude = new BigInteger(1, readByteString());
+            return tag == TAG_POSITIVE_BIGNUM ? magnitude : BigInteger.ONE.negate().subtract(magnitude);
+        }
+        if (tag == TAG_DECIMAL_FRACTION) {
+            if (readLength(MAJOR_ARRAY) != 2) {
+                throw error("Decimal fraction must be an array of two integers");
+            }
+            final Object exponent = decodeInteger();
+            final Object mantissa = decodeInteger();
+            if (!(exponent instanceof Long) || (Long) exponent > Integer.MAX_VALUE || (Long) exponent < -Integer.MAX_VALUE) {
+                throw error("Decimal fraction exponent out of range");
+            }
+            final BigInteger unscaled = mantissa instanceof BigInteger
+                    ? (BigInteger) mantissa : BigInteger.valueOf((Long) mantissa);
+            return new BigDecimal(unscaled, (int) -(Long) exponent);
+        }
+        throw error("Unsupported tag " + tag);
+    }
+
+    private Object decodeInteger() throws ParseException {
+        final int major = peekMajor();
+        if (major == MAJOR_UNSIGNED || major == MAJOR_NEGATIVE) {
+            final long argument = readArgument();
+            if (argument < 0) {
+                final BigInteger unsigned = unsignedToBigInteger(argument);
+                return major == MAJOR_UNSIGNED ? unsigned : BigInteger.ONE.negate().subtract(unsigned);
+            }
+            return major == MAJOR_UNSIGNED ? argument : -1 - argument;
+        }
+        if (major == MAJOR_TAG) {
+            final Object value = decodeTagged();
+            if (value instanceof BigInteger) {
+                return value;
+            }
+        }
+        throw error("Expected an integer");
+    }
+
+    private Object decodeSimple() throws ParseException {
+        final int initial = readByte();
+        switch (initial) {
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case NULL:
+                return null;
+            case HALF_FLOAT:
+                return (double) halfToFloat((int) readBigEndian(2));
+            case SINGLE_FLOAT:
+                return (double) Float.intBitsToFloat((int) readBigEndian(4));
+            case DOUBLE_FLOAT:
+                return Double.longBitsToDouble(readBigEndian(8));
+            default:
+                throw error("Unsupported simple value " + (initial & 0x1F));
+        }
+    }
+
+    // https://www.rfc-editor.org/rfc/rfc8949.html#name-half-precision
+    private static float halfToFloat(final int half) {
+        final int exponent = (half >> 10) & 0x1F;
+        final int mantissa = half & 0x3FF;
+        final float value;
+        if (exponent == 0) {
+            value = mantissa * (float) Math.pow(2, -24);
+        } else if (exponent != 31) {
+            value = (mantissa + 1024) * (float) Math.pow(2, exponent - 25);
+        } else {
+            value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+
+    private String readText() throws ParseException {
+        final int length = readLength(MAJOR_TEXT);
+        final String s = new String(in, inPos, length, StandardCharsets.UTF_8);
+        inPos += length;
+        return s;
+    }
+
+    private byte[] readByteString() throws ParseException {
+        final int length = readLength(MAJOR_BYTES);
+        final byte[] bytes = Arrays.copyOfRange(in, inPos, inPos + length);
+        inPos += length;
+        return bytes;
+    }
+
+    // Reads the head of a definite length item of the major type, checking that its content is present.
+    private int readLength(final int major) throws ParseException {
+        if (peekMajor() != major) {
+            throw error("Unexpected CBOR major type " + peekMajor());
+        }
+        final long length = readArgument();
+        // Every array item or map member takes at least one byte, so longer lengths cannot be satisfied.
+        final long minimumBytes = major == MAJOR_MAP ? length * 2 : length;
+        if (length < 0 || length > Integer.MAX_VALUE || minimumBytes > inEnd - inPos) {
+            throw error("Length " + length + " exceeds the remaining input");
+        }
+        return (int) length;
+    }
+
+    // Argument of the head at the current position: an unsigned 64 bit value, negative if above Long.MAX_VALUE.
+    private long readArgument() throws ParseException {
+        final int additional = readByte() & 0x1F;
+        if (additional < 24) {
+            return additional;
+        }
+        switch (additional) {
+            case 24:
+                return readBigEndian(1);
+            case 25:
+                return readBigEndian(2);
+            case 26:
+                return readBigEndian(4);
+            case 27:
+                return readBigEndian(8);
+            case 31:
+                throw error("Indefinite length items are not supported");
+            default:
+                throw error("Reserved additional information " + additional);
+        }
+    }
+
+    private long readBigEndian(final int bytes) throws ParseException {
+        if (inEnd - inPos < bytes) {
+            throw error("Unexpected end of input");
+        }
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (in[inPos++] & 0xFF);
+        }
+        return value;
+    }
+
+    private static BigInteger unsignedToBigInteger(final long argument) {
+        return BigInteger.valueOf(argument & Long.MAX_VALUE).setBit(63);
+    }
+
+    private int peekByte() throws ParseException {
+        if (inPos >= inEnd) {
+            throw error("Unexpected end of input");
+        }
+        return in[inPos] & 0xFF;
+    }
+
+    private int peekMajor() throws ParseException {
+        return peekByte() >> 5;
+    }
+
+    private int readByte() throws ParseException {
+        final int b = peekByte();
+        inPos++;
+        return b;
+    }
+
+    private void checkDecodeDepth(final int depth) throws ParseException {
+        if (depth >= MAX_DEPTH) {
+            throw error("Subject Identifier nested deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private ParseException error(final String message) {
+        return new StacklessParseException(message + " at offset " + (inPos - inStart), inPos - inStart);
+    }
+}
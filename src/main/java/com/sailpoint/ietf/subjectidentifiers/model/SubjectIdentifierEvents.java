@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDK Flight Recorder events for conversion, validation and aliases processing. They are disabled unless enabled
+ * in the settings of a recording: with Recording.enable(name), or a .jfc file passed as
+ * -XX:StartFlightRecording=settings=file.jfc, which works from Java 11. From Java 17 an event can also be enabled on
+ * the command line, as in -XX:StartFlightRecording:com.sailpoint.ietf.subjectidentifiers.Conversion#enabled=true.
+ *
+ * The jdk.jfr module is optional: when it is absent from the runtime image, or not read by this module, no event
+ * class is loaded and every method returns at once. Only Recorder refers to event classes, and begun events are
+ * passed around as Objects, so that no other class needs jdk.jfr to be verified.
+ */
+final class SubjectIdentifierEvents {
+
+    private static final String CATEGORY = "IETF Subject Identifiers";
+    private static final String VALID = "valid";
+
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    private SubjectIdentifierEvents() {
+    }
+
+    @Name("com.sailpoint.ietf.subjectidentifiers.Conversion")
+    @Label("Subject Identifier Conversion")
+    @Description("Conversion of a JSON object into a tree of validated Subject Identifiers")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class ConversionEvent extends Event {
+        @Label("Format")
+        String format;
+        @Label("Depth")
+        int depth;
+        @Label("Identifier Count")
+        @Description("Number of Subject Identifiers in the tree")
+        int identifierCount;
+        @Label("Outcome")
+        @Description("valid, or the code of the first problem found")
+        String outcome;
+    }
+
+    @Name("com.sailpoint.ietf.subjectidentifiers.Validation")
+    @Label("Subject Identifier Validation")
+    @Description("Validation of a tree of Subject Identifiers")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class ValidationEvent extends Event {
+        @Label("Format")
+        String format;
+        @Label("Depth")
+        int depth;
+        @Label("Identifier Count")
+        @Description("Number of Subject Identifiers in the tree")
+        int identifierCount;
+        @Label("Outcome")
+        @Description("valid, or the code of the first problem found")
+        String outcome;
+    }
+
+    @Name("com.sailpoint.ietf.subjectidentifiers.Aliases")
+    @Label("Aliases Conversion")
+    @Description("Conversion of the identifiers of an Aliases Subject Identifier")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class AliasesEvent extends Event {
+        @Label("Identifier Count")
+        int identifierCount;
+        @Label("Outcome")
+        @Description("valid, or the code of the first problem found")
+        String outcome;
+    }
+
+    // Refers to the event classes, so that it is only loaded once the jdk.jfr module is known to be readable.
+    private static final class Recorder {
+        private static final EventType CONVERSION = EventType.getEventType(ConversionEvent.class);
+        private static final EventType VALIDATION = EventType.getEventType(ValidationEvent.class);
+        private static final EventType ALIASES = EventType.getEventType(AliasesEvent.class);
+
+        private static Object beginConversion() {
+            if (!CONVERSION.isEnabled()) {
+                return null;
+            }
+            final ConversionEvent event = new ConversionEvent();
+            event.begin();
+            return event;
+        }
+
+        private static Object beginValidation() {
+            if (!VALIDATION.isEnabled()) {
+                return null;
+            }
+            final ValidationEvent event = new ValidationEvent();
+            event.begin();
+            return event;
+        }
+
+        private static Object beginAliases() {
+            if (!ALIASES.isEnabled()) {
+                return null;
+            }
+            final AliasesEvent event = new AliasesEvent();
+            event.begin();
+            return event;
+        }
+
+        private static void endConversion(final Object begun, final Map<String, Object> subject, final Exception error) {
+            final ConversionEvent event = (ConversionEvent) begun;
+            event.end();
+            if (event.shouldCommit()) {
+                final SubjectIdentifierMetrics.Shape shape = new SubjectIdentifierMetrics.Shape(subject);
+                event.format = SubjectIdentifierMetrics.format(subject);
+                event.depth = shape.depth;
+                event.identifierCount = shape.objects;
+                event.outcome = outcome(error);
+                event.commit();
+            }
+        }
+
+        private static void endValidation(final Object begun, final Map<String, Object> subject, final Exception error) {
+            final ValidationEvent event = (ValidationEvent) begun;
+            event.end();
+            if (event.shouldCommit()) {
+                final SubjectIdentifierMetrics.Shape shape = new SubjectIdentifierMetrics.Shape(subject);
+                event.format = SubjectIdentifierMetrics.format(subject);
+                event.depth = shape.depth;
+                event.identifierCount = shape.objects;
+                event.outcome = outcome(error);
+                event.commit();
+            }
+        }
+
+        private static void endAliases(final Object begun, final int identifierCount, final Exception error) {
+            final AliasesEvent event = (AliasesEvent) begun;
+            event.end();
+            if (event.shouldCommit()) {
+                event.identifierCount = identifierCount;
+                event.outcome = outcome(error);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return the begun event, or null if conversion events are not recorded.
+     */
+    static Object beginConversion() {
+        return AVAILABLE ? Recorder.beginConversion() : null;
+    }
+
+    static void endConversion(final Object event, final Map<String, Object> subject, final Exception error) {
+        if (null != event) {
+            Recorder.endConversion(event, subject, error);
+        }
+    }
+
+    /**
+     * @return the begun event, or null if validation events are not recorded.
+     */
+    static Object beginValidation() {
+        return AVAILABLE ? Recorder.beginValidation() : null;
+    }
+
+    static void endValidation(final Object event, final Map<String, Object> subject, final Exception error) {
+        if (null != event) {
+            Recorder.endValidation(event, subject, error);
+        }
+    }
+
+    /**
+     * @return the begun event, or null if aliases events are not recorded.
+     */
+    static Object beginAliases() {
+        return AVAILABLE ? Recorder.beginAliases() : null;
+    }
+
+    static void endAliases(final Object event, final int identifierCount, final Exception error) {
+        if (null != event) {
+            Recorder.endAliases(event, identifierCount, error);
+        }
+    }
+
+    private static String outcome(final Exception error) {
+        final SIValidationErrorCode code = SubjectIdentifierMetrics.errorCode(error);
+        return null == code ? VALID : code.toString();
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        final Optional<Module> jfr = ModuleLayer.boot().findModule("jdk.jfr");
+        return jfr.isPresent() && SubjectIdentifierEvents.class.getModule().canRead(jfr.get());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+
+/**
+ * Service provider interface for vendor specific (x-) Subject Identifier formats. Implementations are discovered
+ * with {@link java.util.ServiceLoader} when the {@link SubjectIdentifierFormatRegistry} is first used, either from
+ * META-INF/services or from a provides clause in the module declaration of the implementing module.
+ */
+public interface SubjectIdentifierFormatProvider {
+
+    /**
+     * @return the format name, which must begin with x-.
+     */
+    String getFormat();
+
+    /**
+     * @return a new, empty Subject Identifier for this format.
+     */
+    SubjectIdentifier newSubjectIdentifier();
+
+    /**
+     * Format specific checks run by {@link SubjectIdentifier#validate()}. The default accepts any members.
+     *
+     * @param subj - Subject Identifier with this format
+     * @throws SIValidationException - if the members are improper for this format
+     */
+    default void validate(final SubjectIdentifier subj) throws ParseException, SIValidationException {
+        // no op
+    }
+}
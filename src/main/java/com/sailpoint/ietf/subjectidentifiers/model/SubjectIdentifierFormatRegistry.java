@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps a format name to the factory that creates its Subject Identifier class and to any additional validator
+ * for that format. The formats of {@link SubjectIdentifierFormats} are registered when the registry is first used,
+ * followed by every {@link SubjectIdentifierFormatProvider} found by {@link ServiceLoader}. Further x- formats may
+ * be registered at runtime.
+ *
+ * Subject Identifiers are created through the precomputed factories, so no reflection is used while parsing.
+ */
+public final class SubjectIdentifierFormatRegistry {
+
+    private static final class Registration {
+        private final Supplier<? extends SubjectIdentifier> factory;
+        private final SubjectIdentifierValidator validator;
+
+        private Registration(final Supplier<? extends SubjectIdentifier> factory,
+                             final SubjectIdentifierValidator validator) {
+            this.factory = factory;
+            this.validator = validator;
+        }
+    }
+
+    private static final Map<String, Registration> BY_FORMAT = new ConcurrentHashMap<>();
+
+    private static final System.Logger LOGGER = System.getLogger(SubjectIdentifierFormatRegistry.class.getName());
+
+    // Bounds the attempts to skip bad providers, as ServiceLoader does not guarantee to recover after an error.
+    private static final int MAX_PROVIDER_ERRORS = 100;
+
+    static {
+        for (SubjectIdentifierFormats format : SubjectIdentifierFormats.values()) {
+            final Supplier<? extends SubjectIdentifier> factory = format.getFactory();
+            BY_FORMAT.put(format.toString(), new Registration(null == factory ? SubjectIdentifier::new : factory,
+                    SubjectIdentifierValidator.NONE));
+        }
+        loadProviders();
+    }
+
+    private SubjectIdentifierFormatRegistry() {
+    }
+
+    // Registers the providers found by ServiceLoader. A provider that cannot be loaded or registered is skipped, so
+    // that one bad jar does not break every format.
+    private static void loadProviders() {
+        final Iterator<SubjectIdentifierFormatProvider> providers =
+                ServiceLoader.load(SubjectIdentifierFormatProvider.class).iterator();
+        int errors = 0;
+        while (errors < MAX_PROVIDER_ERRORS) {
+            try {
+                if (!providers.hasNext()) {
+                    return;
+                }
+                register(providers.next());
+            } catch (ServiceConfigurationError | RuntimeException e) {
+                errors++;
+                LOGGER.log(System.Logger.Level.WARNING, "Skipping Subject Identifier format provider", e);
+            }
+        }
+    }
+
+    /**
+     * Registers a vendor specific format, replacing any earlier registration of the same name.
+     *
+     * @param format - format name, which must begin with x-
+     * @param factory - creates a new, empty Subject Identifier for the format
+     * @param validator - format specific checks, run by {@link SubjectIdentifier#validate()}
+     * @throws IllegalArgumentException - if the format is defined by specification or does not begin with x-
+     */
+    public static void register(final String format, final Supplier<? extends SubjectIdentifier> factory,
+                                final SubjectIdentifierValidator validator) {
+        if (null == format || !format.startsWith("x-")) {
+            throw new IllegalArgumentException("Only formats beginning with x- may be registered, not " + format);
+        }
+        if (null == factory || null == validator) {
+            throw new IllegalArgumentException("Format " + format + " must have a factory and a validator.");
+        }
+        BY_FORMAT.put(format, new Registration(factory, validator));
+        // Subject Identifiers of the format may have been validated against an earlier registration.
+        SubjectIdentifier.forgetValidations();
+    }
+
+    public static void register(final String format, final Supplier<? extends SubjectIdentifier> factory) {
+        register(format, factory, SubjectIdentifierValidator.NONE);
+    }
+
+    public static void register(final SubjectIdentifierFormatProvider provider) {
+        register(provider.getFormat(), provider::newSubjectIdentifier, provider::validate);
+    }
+
+    // Removes a format registered at runtime, so that tests leave the registry as they found it.
+    static void unregister(final String format) {
+        if (null == format || !format.startsWith("x-")) {
+            throw new IllegalArgumentException("Only formats beginning with x- may be unregistered, not " + format);
+        }
+        BY_FORMAT.remove(format);
+        SubjectIdentifier.forgetValidations();
+    }
+
+    public static boolean isRegistered(final String format) {
+        return null != format && BY_FORMAT.containsKey(format);
+    }
+
+    /**
+     * @param format - format name, may be null
+     * @return a new Subject Identifier of the class registered for the format, or a base SubjectIdentifier when the
+     * format is null or unregistered.
+     */
+    public static SubjectIdentifier newSubjectIdentifier(final String format) {
+        final Registration registration = null == format ? null : BY_FORMAT.get(format);
+        if (null == registration) {
+            return new SubjectIdentifier();
+        }
+        return registration.factory.get();
+    }
+
+    static void validate(final SubjectIdentifier subj, final SIValidationResult result) {
+        final Object format = subj.get(SubjectIdentifierMembers.FORMAT.toString());
+        if (!(format instanceof String)) {
+            return;
+        }
+        final Registration registration = BY_FORMAT.get(format);
+        if (null == registration || SubjectIdentifierValidator.NONE == registration.validator) {
+            return;
+        }
+        if (registration.validator instanceof SubjectIdentifierValidationPlan) {
+            ((SubjectIdentifierValidationPlan) registration.validator).validate(subj, result);
+            return;
+        }
+        try {
+            registration.validator.validate(subj);
+        } catch (SIValidationException e) {
+            result.add(e.getErrorCode(), null, e.getMessage());
+        } catch (ParseException e) {
+            result.add(SIValidationErrorCode.MEMBER_NOT_STRING, null, e.getMessage());
+        }
+    }
+}
@@ -6,30 +6,41 @@
 
 package com.sailpoint.ietf.subjectidentifiers.model;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public enum SubjectIdentifierFormats {
 
     // https://github.com/richanna/secevent/blob/master/draft-ietf-secevent-subject-identifiers.txt
-    ACCOUNT("account", AccountSubjectIdentifier.class),
-    EMAIL("email", EmailSubjectIdentifier.class),
-    PHONE_NUMBER("phone_number", PhoneNumberSubjectIdentifier.class),
-    ISSUER_SUBJECT("iss_sub", IssSubSubjectIdentifier.class),
-    ALIASES("aliases", AliasesSubjectIdentifier.class),
-
-    JWT_ID("jwt_id"),
-    SAML_ASSERTION_ID("saml_assertion_id"),
+    ACCOUNT("account", AccountSubjectIdentifier.class, AccountSubjectIdentifier::new,
+            SubjectIdentifierMembers.URI),
+    EMAIL("email", EmailSubjectIdentifier.class, EmailSubjectIdentifier::new,
+            SubjectIdentifierMembers.EMAIL),
+    PHONE_NUMBER("phone_number", PhoneNumberSubjectIdentifier.class, PhoneNumberSubjectIdentifier::new,
+            SubjectIdentifierMembers.PHONE_NUMBER),
+    ISSUER_SUBJECT("iss_sub", IssSubSubjectIdentifier.class, IssSubSubjectIdentifier::new,
+            SubjectIdentifierMembers.ISSUER, SubjectIdentifierMembers.SUBJECT),
+    ALIASES("aliases", AliasesSubjectIdentifier.class, AliasesSubjectIdentifier::new,
+            SubjectIdentifierMembers.IDENTIFIERS),
+
+    JWT_ID("jwt_id", SubjectIdentifierMembers.ISSUER, SubjectIdentifierMembers.JWT_ID),
+    SAML_ASSERTION_ID("saml_assertion_id", SubjectIdentifierMembers.SAML_ISSUER, SubjectIdentifierMembers.SAML_ASSERTION_ID),
 
     //  https://bitbucket.org/openid/risc/pull-requests/8/align-with-new-subject-identifier-draft
-    OPAQUE("opaque"),
+    OPAQUE("opaque", SubjectIdentifierMembers.ID),
 
     // https://bitbucket.org/openid/risc/src/master/oauth-event-types-1_0.txt
-    OAUTH_TOKEN("oauth_token"),
+    OAUTH_TOKEN("oauth_token", SubjectIdentifierMembers.TOKEN_TYPE, SubjectIdentifierMembers.TOKEN_IDENTIFIER_ALG,
+            SubjectIdentifierMembers.TOKEN),
 
     // https://github.com/richanna/secevent/pull/2
     // Decentralized Identifier
-    DID("did", DIDSubjectIdentifier.class);
+    DID("did", DIDSubjectIdentifier.class, DIDSubjectIdentifier::new,
+            SubjectIdentifierMembers.URL);
 
     private static final Map<String, SubjectIdentifierFormats> BY_NAME = new HashMap<>();
 
@@ -41,15 +52,23 @@ public enum SubjectIdentifierFormats {
 
     private final String name;
     private final Class<? extends SubjectIdentifier> cls;
+    private final Supplier<? extends SubjectIdentifier> factory;
+    private final List<SubjectIdentifierMembers> identifyingMembers;
 
-    SubjectIdentifierFormats(final String s) {
+    SubjectIdentifierFormats(final String s, final SubjectIdentifierMembers... identifyingMembers) {
         name = s;
         this.cls = null;
+        this.factory = null;
+        this.identifyingMembers = Collections.unmodifiableList(Arrays.asList(identifyingMembers));
     }
 
-    SubjectIdentifierFormats(final String s, final Class<? extends SubjectIdentifier> cls) {
+    SubjectIdentifierFormats(final String s, final Class<? extends SubjectIdentifier> cls,
+                             final Supplier<? extends SubjectIdentifier> factory,
+                             final SubjectIdentifierMembers... identifyingMembers) {
         name = s;
         this.cls = cls;
+        this.factory = factory;
+        this.identifyingMembers = Collections.unmodifiableList(Arrays.asList(identifyingMembers));
     }
 
     public static SubjectIdentifierFormats enumByName(String name) { return BY_NAME.get(name); }
@@ -68,4 +87,14 @@ public enum SubjectIdentifierFormats {
     }
 
     public Class<? extends SubjectIdentifier> getCls() { return this.cls; }
+
+    /**
+     * @return constructor reference for the specialized class of this format, or null if there is none.
+     */
+    public Supplier<? extends SubjectIdentifier> getFactory() { return this.factory; }
+
+    /**
+     * @return the members that together identify the subject in this format, such as iss and sub for iss_sub.
+     */
+    public List<SubjectIdentifierMembers> getIdentifyingMembers() { return this.identifyingMembers; }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded pool of shared Subject Identifiers, keyed on their content. Pass one to
+ * {@link SubjectIdentifier#convertSubjects(JSONObject, SubjectIdentifierInterner)} so that identical subjects
+ * convert to the same instance, which downstream caches can then compare by identity.
+ *
+ * The pool is split into independently locked segments, each evicting its least recently used entries once
+ * full. Shared instances must be treated as read-only: changing one would change it for every holder and
+ * corrupt the pool.
+ */
+public final class SubjectIdentifierInterner {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    // Content hash is computed once per lookup and compared before the content itself.
+    private static final class Key {
+        private final Map<String, Object> content;
+        private final int hash;
+
+        private Key(final Map<String, Object> content, final int hash) {
+            this.content = content;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hash == other.hash && content.equals(other.content);
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, SubjectIdentifier> {
+        private final int capacity;
+
+        private Segment(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, SubjectIdentifier> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private final Segment[] segments;
+    private final int mask;
+
+    /**
+     * @param maxSize - maximum number of Subject Identifiers held by the pool
+     */
+    public SubjectIdentifierInterner(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Interner size must be positive, not " + maxSize);
+        }
+        int count = 1;
+        while (count < DEFAULT_SEGMENTS && count * 2 <= maxSize) {
+            count *= 2;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder so that the segment capacities add up to maxSize.
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+        mask = count - 1;
+    }
+
+    private Segment segmentFor(final int hash) {
+        return segments[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    /**
+     * @param content - Subject Identifier or JSON object
+     * @return the pooled Subject Identifier with equal content, or null if there is none.
+     */
+    public SubjectIdentifier get(final Map<String, Object> content) {
+        final int hash = content.hashCode();
+        final Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            return segment.get(new Key(content, hash));
+        }
+    }
+
+    /**
+     * @param subj - Subject Identifier to share
+     * @return the pooled Subject Identifier with content equal to subj, which is subj itself if there was none.
+     */
+    public SubjectIdentifier intern(final SubjectIdentifier subj) {
+        final int hash = subj.hashCode();
+        final Segment segment = segmentFor(hash);
+        final Key key = new Key(subj, hash);
+        synchronized (segment) {
+            final SubjectIdentifier shared = segment.putIfAbsent(key, subj);
+            return null == shared ? subj : shared;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+}
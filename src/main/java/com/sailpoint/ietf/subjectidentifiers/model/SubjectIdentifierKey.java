@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of a Subject Identifier for use as a HashMap or ConcurrentHashMap key. Its hash is computed
+ * once, when the key is created, instead of over every member on each lookup as for the JSONObject itself.
+ *
+ * Equality first compares the cached hash, then the format, then the identifying members of the format (see
+ * {@link SubjectIdentifierFormats#getIdentifyingMembers()}), and only then the remaining members. Two keys are
+ * equal exactly when the Subject Identifiers they were created from had equal content at the time.
+ */
+public final class SubjectIdentifierKey {
+
+    private static final String FORMAT = SubjectIdentifierMembers.FORMAT.toString();
+
+    private final String format;
+    private final String[] names;
+    private final Object[] values;
+    private final int hash;
+
+    private SubjectIdentifierKey(final String format, final String[] names, final Object[] values) {
+        this.format = format;
+        this.names = names;
+        this.values = values;
+        int h = Objects.hashCode(format);
+        for (int i = 0; i < names.length; i++) {
+            h = 31 * h + names[i].hashCode();
+            h = 31 * h + Objects.hashCode(values[i]);
+        }
+        this.hash = h;
+    }
+
+    /**
+     * @param subj - Subject Identifier or JSON object
+     * @return key capturing the current content of subj. Later changes to subj do not affect the key.
+     */
+    public static SubjectIdentifierKey of(final Map<String, Object> subj) {
+        return of(subj, false);
+    }
+
+    // Captures every member; child subjects are captured as by ofIdentifyingMembers() if identifyingChildren is set.
+    private static SubjectIdentifierKey of(final Map<String, Object> subj, final boolean identifyingChildren) {
+        final Object formatValue = subj.get(FORMAT);
+        final String format = formatValue instanceof String ? (String) formatValue : null;
+        final List<SubjectIdentifierMembers> identifying = identifyingMembers(format);
+
+        final String[] names = new String[subj.size()];
+        int count = 0;
+        // Identifying members come first, in the order of the format, so that they are compared first.
+        for (SubjectIdentifierMembers member : identifying) {
+            final String name = member.toString();
+            if (subj.containsKey(name)) {
+                names[count++] = name;
+            }
+        }
+        final int leading = count;
+        for (String name : subj.keySet()) {
+            if ((FORMAT.equals(name) && null != format) || isIdentifying(identifying, name)) {
+                continue;
+            }
+            names[count++] = name;
+        }
+        Arrays.sort(names, leading, count);
+
+        final Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            final Object value = subj.get(names[i]);
+            values[i] = identifyingChildren ? snapshotIdentifying(value) : snapshot(value);
+        }
+        return new SubjectIdentifierKey(format, count == names.length ? names : Arrays.copyOf(names, count), values);
+    }
+
+    /**
+     * @param subj - Subject Identifier or JSON object
+     * @return key capturing only the format and identifying members of subj, so that subjects naming the same
+     * principal are equal whatever other members they carry. Complex subjects are captured by their complex members
+     * only, each captured in turn by its identifying members. Subjects whose format has no identifying members, and
+     * subjects without a format or complex members, are captured whole as by {@link #of(Map)}, but for the
+     * Subject Identifiers they hold.
+     */
+    static SubjectIdentifierKey ofIdentifyingMembers(final Map<String, Object> subj) {
+        final Object formatValue = subj.get(FORMAT);
+        final List<SubjectIdentifierMembers> identifying;
+        if (null == formatValue) {
+            identifying = SubjectIdentifierMembers.complexMembers();
+        } else {
+            final SubjectIdentifierFormats known = formatValue instanceof String
+                    ? SubjectIdentifierFormats.enumByName((String) formatValue) : null;
+            identifying = null == known ? Collections.<SubjectIdentifierMembers>emptyList()
+                    : known.getIdentifyingMembers();
+        }
+        final String[] names = new String[identifying.size()];
+        final Object[] values = new Object[identifying.size()];
+        int count = 0;
+        for (SubjectIdentifierMembers member : identifying) {
+            final String name = member.toString();
+            if (subj.containsKey(name)) {
+                names[count] = name;
+                values[count++] = snapshotIdentifying(subj.get(name));
+            }
+        }
+        if (count == 0) {
+            return of(subj, true);
+        }
+        return new SubjectIdentifierKey((String) formatValue,
+                count == names.length ? names : Arrays.copyOf(names, count),
+                count == values.length ? values : Arrays.copyOf(values, count));
+    }
+
+    private static List<SubjectIdentifierMembers> identifyingMembers(final String format) {
+        if (null == format) {
+            // OpenID SSE Complex Subject Identifiers have no format and are identified by their child subjects.
+            return SubjectIdentifierMembers.complexMembers();
+        }
+        final SubjectIdentifierFormats known = SubjectIdentifierFormats.enumByName(format);
+        return null == known ? Collections.<SubjectIdentifierMembers>emptyList() : known.getIdentifyingMembers();
+    }
+
+    private static boolean isIdentifying(final List<SubjectIdentifierMembers> identifying, final String name) {
+        for (SubjectIdentifierMembers member : identifying) {
+            if (member.equalsName(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Snapshots as snapshot(), but captures the JSON objects inside value by their identifying members.
+    @SuppressWarnings("unchecked")
+    private static Object snapshotIdentifying(final Object value) {
+        if (value instanceof Map) {
+            return ofIdentifyingMembers((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            final List<?> items = (List<?>) value;
+            final List<Object> copy = new ArrayList<>(items.size());
+            for (Object item : items) {
+                copy.add(snapshotIdentifying(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object snapshot(final Object value) {
+        if (value instanceof Map) {
+            return of((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            final List<?> items = (List<?>) value;
+            final List<Object> copy = new ArrayList<>(items.size());
+            for (Object item : items) {
+                copy.add(snapshot(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    /**
+     * @return the format of the Subject Identifier, or null if it had none.
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SubjectIdentifierKey)) {
+            return false;
+        }
+        final SubjectIdentifierKey other = (SubjectIdentifierKey) o;
+        if (hash != other.hash || names.length != other.names.length || !Objects.equals(format, other.format)) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equals(other.names[i]) || !Objects.equals(values[i], other.values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SubjectIdentifierKey{format=").append(format);
+        for (int i = 0; i < names.length; i++) {
+            sb.append(", ").append(names[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SubjectIdentifierMetricsListener} aggregating the latency, size and outcome of operations per operation
+ * and format, for export to dashboards. Latencies are counted in power of two buckets of nanoseconds. Recording
+ * takes no lock: counters are LongAdders, and the statistics of a format are only created on its first operation.
+ */
+public final class SubjectIdentifierLatencyHistogram implements SubjectIdentifierMetricsListener {
+
+    /**
+     * Key of the statistics of Subject Identifiers without a format member, such as complex subjects.
+     */
+    public static final String NO_FORMAT = "";
+
+    /**
+     * Key of the statistics of formats that are not registered, which are pooled so that input naming many
+     * formats cannot grow the histogram without bound.
+     */
+    public static final String UNREGISTERED_FORMAT = "unregistered";
+
+    // Bucket i counts latencies below 2^i nanoseconds and, but for the first, at least 2^(i-1).
+    private static final int BUCKETS = 64;
+
+    /**
+     * Statistics of one operation on one format.
+     */
+    public static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder members = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder[] errors = new LongAdder[SIValidationErrorCode.values().length];
+
+        private Stats() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            for (int i = 0; i < errors.length; i++) {
+                errors[i] = new LongAdder();
+            }
+        }
+
+        private void record(final int memberCount, final long nanos, final SIValidationErrorCode error) {
+            count.increment();
+            totalNanos.add(nanos);
+            members.add(memberCount);
+            buckets[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+            if (null != error) {
+                errors[error.ordinal()].increment();
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return the number of members of all operations, so that the cost per member can be derived.
+         */
+        public long getMemberCount() {
+            return members.sum();
+        }
+
+        public long getErrorCount() {
+            long sum = 0;
+            for (LongAdder error : errors) {
+                sum += error.sum();
+            }
+            return sum;
+        }
+
+        public long getErrorCount(final SIValidationErrorCode error) {
+            return errors[error.ordinal()].sum();
+        }
+
+        /**
+         * @param bucket - from 0 to 63
+         * @return the number of operations that took less than 2^bucket nanoseconds, and at least 2^(bucket - 1)
+         * but for the first bucket.
+         */
+        public long getBucketCount(final int bucket) {
+            return buckets[bucket].sum();
+        }
+
+        /**
+         * @param quantile - from 0 to 1, such as 0.99
+         * @return an upper bound, in nanoseconds, of the latency below which the quantile of operations fall, or 0
+         * if none were recorded. It is at most twice the exact value.
+         */
+        public long getQuantileNanos(final double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("Quantile must be between 0 and 1, not " + quantile);
+            }
+            final long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return 1L << i;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private final Map<String, Stats>[] byOperation;
+
+    @SuppressWarnings("unchecked")
+    public SubjectIdentifierLatencyHistogram() {
+        byOperation = new Map[Operation.values().length];
+        for (int i = 0; i < byOperation.length; i++) {
+            byOperation[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    @Override
+    public void onOperation(final Operation operation, final String format, final int depth, final int memberCount,
+                            final long nanos, final SIValidationErrorCode error) {
+        final Map<String, Stats> byFormat = byOperation[operation.ordinal()];
+        final String key = null == format ? NO_FORMAT
+                : SubjectIdentifierFormatRegistry.isRegistered(format) ? format : UNREGISTERED_FORMAT;
+        Stats stats = byFormat.get(key);
+        if (null == stats) {
+            stats = byFormat.computeIfAbsent(key, k -> new Stats());
+        }
+        stats.record(memberCount, nanos, error);
+    }
+
+    /**
+     * @param format - format name, {@link #NO_FORMAT} or {@link #UNREGISTERED_FORMAT}
+     * @return the statistics of the operation on the format, or null if none was recorded.
+     */
+    public Stats getStats(final Operation operation, final String format) {
+        return byOperation[operation.ordinal()].get(format);
+    }
+
+    /**
+     * @return a live view of the statistics of the operation, keyed on format.
+     */
+    public Map<String, Stats> getStats(final Operation operation) {
+        return Collections.unmodifiableMap(byOperation[operation.ordinal()]);
+    }
+}
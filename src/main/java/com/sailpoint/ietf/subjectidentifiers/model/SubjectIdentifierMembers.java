@@ -6,7 +6,10 @@
 
 package com.sailpoint.ietf.subjectidentifiers.model;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public enum SubjectIdentifierMembers {
@@ -39,6 +42,10 @@ public enum SubjectIdentifierMembers {
 
     private static final Map<String, SubjectIdentifierMembers> BY_NAME = new HashMap<>();
 
+    // Members of OpenID SSE Complex Subject Identifiers, which hold child Subject Identifiers.
+    private static final List<SubjectIdentifierMembers> COMPLEX_MEMBERS = Collections.unmodifiableList(Arrays.asList(
+            USER, DEVICE, SESSION, APPLICATION, TENANT, ORG_UNIT, GROUP));
+
     static {
         for (SubjectIdentifierMembers t : values()) {
             BY_NAME.put(t.name, t);
@@ -59,6 +66,10 @@ public enum SubjectIdentifierMembers {
         return BY_NAME.containsKey(name);
     }
 
+    public static List<SubjectIdentifierMembers> complexMembers() {
+        return COMPLEX_MEMBERS;
+    }
+
     public boolean equalsName(final String otherName) {
         return name.equals(otherName);
     }
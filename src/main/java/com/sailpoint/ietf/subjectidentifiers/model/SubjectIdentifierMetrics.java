@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the {@link SubjectIdentifierMetricsListener} notified of conversions and validations. No listener is
+ * installed by default, in which case measuring costs a single read of a volatile field per call.
+ */
+public final class SubjectIdentifierMetrics {
+
+    private static volatile SubjectIdentifierMetricsListener listener;
+
+    private SubjectIdentifierMetrics() {
+    }
+
+    /**
+     * @param metricsListener - listener to notify from now on, replacing any earlier one, or null to stop measuring
+     */
+    public static void setListener(final SubjectIdentifierMetricsListener metricsListener) {
+        listener = metricsListener;
+    }
+
+    /**
+     * @return the installed listener, or null if none is.
+     */
+    public static SubjectIdentifierMetricsListener getListener() {
+        return listener;
+    }
+
+    // Reports an operation on subject that started at the given System.nanoTime(). The exception is null on success.
+    static void report(final SubjectIdentifierMetricsListener metricsListener,
+                       final SubjectIdentifierMetricsListener.Operation operation, final Map<String, Object> subject,
+                       final long startNanos, final Exception error) {
+        final long nanos = System.nanoTime() - startNanos;
+        final Shape shape = new Shape(subject);
+        metricsListener.onOperation(operation, format(subject), shape.depth, shape.members, Math.max(0, nanos),
+                errorCode(error));
+    }
+
+    static String format(final Map<String, Object> subject) {
+        final Object format = subject.get(SubjectIdentifierMembers.FORMAT.toString());
+        return format instanceof String ? (String) format : null;
+    }
+
+    // Kind of problem an exception thrown by conversion or validation reports, or null for none.
+    static SIValidationErrorCode errorCode(final Exception error) {
+        if (null == error) {
+            return null;
+        }
+        if (error instanceof SIValidationException) {
+            return ((SIValidationException) error).getErrorCode();
+        }
+        if (error instanceof ParseException) {
+            return SIValidationErrorCode.MEMBER_NOT_STRING;
+        }
+        return SIValidationErrorCode.INVALID;
+    }
+
+    // Size of a subject: the nesting depth of its JSON objects, their number and their number of members.
+    static final class Shape {
+        int depth;
+        int objects;
+        int members;
+
+        Shape(final Map<?, ?> subject) {
+            depth = add(subject, 1);
+        }
+
+        private int add(final Map<?, ?> object, final int level) {
+            objects++;
+            members += object.size();
+            int deepest = level;
+            for (Object value : object.values()) {
+                if (value instanceof Map) {
+                    deepest = Math.max(deepest, add((Map<?, ?>) value, level + 1));
+                } else if (value instanceof List) {
+                    for (Object item : (List<?>) value) {
+                        if (item instanceof Map) {
+                            deepest = Math.max(deepest, add((Map<?, ?>) item, level + 1));
+                        }
+                    }
+                }
+            }
+            return deepest;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+/**
+ * Receives the cost and outcome of each {@link SubjectIdentifier#convertSubjects(com.nimbusds.jose.shaded.json.JSONObject)}
+ * and {@link SubjectIdentifier#validate()} call, once installed with {@link SubjectIdentifierMetrics#setListener}.
+ * Conversions and validations of child Subject Identifiers are part of the call on their root, and are not reported
+ * separately.
+ *
+ * The listener is called on the thread that converted or validated, after the work is done, so it must be
+ * thread-safe and should return quickly. {@link SubjectIdentifierLatencyHistogram} aggregates calls per format.
+ */
+@FunctionalInterface
+public interface SubjectIdentifierMetricsListener {
+
+    enum Operation {
+        CONVERT,
+        VALIDATE
+    }
+
+    /**
+     * @param operation - operation that was measured
+     * @param format - format member of the root Subject Identifier, or null if it has none, as complex subjects
+     * @param depth - number of levels of nested JSON objects, 1 for a Subject Identifier without children
+     * @param memberCount - number of members of the root and of every nested JSON object
+     * @param nanos - elapsed time, in nanoseconds
+     * @param error - kind of the first problem found, or null if the operation succeeded. ParseExceptions thrown
+     * for members that are not Strings are reported as {@link SIValidationErrorCode#MEMBER_NOT_STRING}.
+     */
+    void onOperation(Operation operation, String format, int depth, int memberCount, long nanos,
+                     SIValidationErrorCode error);
+}
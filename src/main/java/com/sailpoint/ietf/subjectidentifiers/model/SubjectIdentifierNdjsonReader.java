@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+
+/**
+ * Reads newline delimited JSON, one Subject Identifier per line, such as exported subscription lists and audit
+ * logs. Each line is parsed with {@link SubjectIdentifierParser} into a tree of Subject Identifiers of the classes
+ * registered for their formats, and validated. An improper line yields a {@link Line} holding its error, and
+ * reading continues with the next one. Blank lines are skipped.
+ *
+ * Memory is bounded by the maximum line length rather than by the size of the input: files opened with
+ * {@link #open(Path)} are memory-mapped a window at a time, and other channels are read through a buffer of the
+ * maximum line length. Longer lines are skipped and reported as improper. Instances are not thread-safe.
+ */
+public final class SubjectIdentifierNdjsonReader implements Closeable {
+
+    /**
+     * Default maximum length of a line in bytes, excluding its line terminator.
+     */
+    public static final int DEFAULT_MAX_LINE_LENGTH = 1 << 20;
+
+    // Bytes of a file mapped at a time.
+    private static final long MAPPED_WINDOW = 1L << 26;
+
+    /**
+     * Outcome of reading one line: either the Subject Identifier or the reason it is improper.
+     */
+    public static final class Line {
+        private final long number;
+        private final SubjectIdentifier subject;
+        private final Exception error;
+
+        private Line(final long number, final SubjectIdentifier subject, final Exception error) {
+            this.number = number;
+            this.subject = subject;
+            this.error = error;
+        }
+
+        /**
+         * @return the number of the line in the input, starting at 1.
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        public boolean isSuccess() {
+            return null == error;
+        }
+
+        /**
+         * @return the converted Subject Identifier, or null if the line is improper.
+         */
+        public SubjectIdentifier getSubject() {
+            return subject;
+        }
+
+        /**
+         * @return the ParseException or SIValidationException raised by the line, or the RuntimeException raised
+         * converting it, or null if it succeeded. Offsets of parse errors are relative to the start of the line.
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    private final SubjectIdentifierParser parser = new SubjectIdentifierParser();
+    private final ReadableByteChannel channel;
+    // Set when the channel is a file read through mapped windows.
+    private final FileChannel file;
+    private final int maxLineLength;
+    private ByteBuffer window;
+    private long windowStart;
+    private boolean endOfInput;
+    private long lineNumber;
+
+    /**
+     * Reads from a channel, which {@link #close()} closes, with the default maximum line length.
+     */
+    public SubjectIdentifierNdjsonReader(final ReadableByteChannel channel) {
+        this(channel, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    /**
+     * Reads from a channel, which {@link #close()} closes.
+     *
+     * @param channel - blocking channel to read from
+     * @param maxLineLength - maximum length of a line in bytes, excluding its line terminator
+     */
+    public SubjectIdentifierNdjsonReader(final ReadableByteChannel channel, final int maxLineLength) {
+        this(channel, null, maxLineLength);
+        window = ByteBuffer.allocate(maxLineLength + 1);
+        window.flip();
+    }
+
+    private SubjectIdentifierNdjsonReader(final ReadableByteChannel channel, final FileChannel file,
+                                          final int maxLineLength) {
+        if (maxLineLength <= 0 || maxLineLength == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid maximum line length " + maxLineLength);
+        }
+        this.channel = channel;
+        this.file = file;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Opens a file for reading through memory-mapped windows, with the default maximum line length.
+     */
+    public static SubjectIdentifierNdjsonReader open(final Path path) throws IOException {
+        return open(path, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    /**
+     * Opens a file for reading through memory-mapped windows.
+     *
+     * @param path - file to read
+     * @param maxLineLength - maximum length of a line in bytes, excluding its line terminator
+     */
+    public static SubjectIdentifierNdjsonReader open(final Path path, final int maxLineLength) throws IOException {
+        final FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final SubjectIdentifierNdjsonReader reader = new SubjectIdentifierNdjsonReader(file, file, maxLineLength);
+            reader.window = ByteBuffer.allocate(0);
+            return reader;
+        } catch (IllegalArgumentException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next line that is not blank, or null at the end of the input.
+     * @throws IOException if reading the input fails; the lines read so far are unaffected.
+     */
+    public Line read() throws IOException {
+        while (true) {
+            final int lineStart = window.position();
+            final int newline = indexOfNewline(lineStart);
+            if (newline >= 0) {
+                window.position(newline + 1);
+                if (newline - lineStart > maxLineLength) {
+                    // Only reachable through mapped windows, which hold more than a line.
+                    lineNumber++;
+                    return tooLong();
+                }
+                final Line line = parseLine(lineStart, newline);
+                if (null != line) {
+                    return line;
+                }
+            } else if (window.remaining() > maxLineLength) {
+                lineNumber++;
+                skipLine();
+                return tooLong();
+            } else if (endOfInput) {
+                if (!window.hasRemaining()) {
+                    return null;
+                }
+                final int lineEnd = window.limit();
+                window.position(lineEnd);
+                final Line line = parseLine(lineStart, lineEnd);
+                if (null != line) {
+                    return line;
+                }
+            } else {
+                fill();
+            }
+        }
+    }
+
+    /**
+     * @return the number of lines read so far, including blank and improper ones.
+     */
+    public long getLineCount() {
+        return lineNumber;
+    }
+
+    // Parses the bytes of a line, or returns null if they are blank.
+    private Line parseLine(final int from, final int to) {
+        lineNumber++;
+        if (isBlank(from, to)) {
+            return null;
+        }
+        try {
+            final SubjectIdentifier subj;
+            if (window.hasArray()) {
+                subj = parser.parse(window.array(), window.arrayOffset() + from, to - from);
+            } else {
+                final ByteBuffer bytes = window.duplicate();
+                bytes.limit(to).position(from);
+                subj = parser.parse(bytes);
+            }
+            return new Line(lineNumber, subj, null);
+        } catch (ParseException | SIValidationException | RuntimeException e) {
+            // A bug in the code converting one line, such as a registered factory, fails that line only.
+            return new Line(lineNumber, null, e);
+        }
+    }
+
+    private Line tooLong() {
+        return new Line(lineNumber, null, new StacklessParseException("Line longer than " + maxLineLength + " bytes", 0));
+    }
+
+    // Discards input up to and including the next newline.
+    private void skipLine() throws IOException {
+        while (true) {
+            final int newline = indexOfNewline(window.position());
+            if (newline >= 0) {
+                window.position(newline + 1);
+                return;
+            }
+            window.position(window.limit());
+            if (endOfInput) {
+                return;
+            }
+            fill();
+        }
+    }
+
+    // Makes more input available after the remaining bytes, which are kept.
+    private void fill() throws IOException {
+        if (null != file) {
+            windowStart += window.position();
+            final long size = file.size();
+            final long length = Math.min(Math.max(MAPPED_WINDOW, maxLineLength + 1L), size - windowStart);
+            window = file.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            endOfInput = windowStart + length >= size;
+        } else {
+            window.compact();
+            final int n = channel.read(window);
+            window.flip();
+            endOfInput = n < 0;
+        }
+    }
+
+    private int indexOfNewline(final int from) {
+        final int to = window.limit();
+        for (int i = from; i < to; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isBlank(final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            final byte b = window.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes the channel or file read from.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
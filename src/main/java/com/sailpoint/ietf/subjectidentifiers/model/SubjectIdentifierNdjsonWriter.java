@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Writes Subject Identifiers as newline delimited JSON, one per line, as {@link SubjectIdentifierNdjsonReader}
+ * reads them. Each subject is serialized with {@link SubjectIdentifierWriter} and buffered, so memory is bounded by
+ * the buffer size however many subjects are written. Instances are not thread-safe.
+ */
+public final class SubjectIdentifierNdjsonWriter implements Closeable, Flushable {
+
+    /**
+     * Default size of the output buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final SubjectIdentifierWriter writer = new SubjectIdentifierWriter();
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long lineCount;
+
+    /**
+     * Writes to a channel, which {@link #close()} closes, with the default buffer size.
+     */
+    public SubjectIdentifierNdjsonWriter(final WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writes to a channel, which {@link #close()} closes.
+     *
+     * @param channel - blocking channel to write to
+     * @param bufferSize - size of the output buffer in bytes
+     */
+    public SubjectIdentifierNdjsonWriter(final WritableByteChannel channel, final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive, not " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Creates a file, or replaces its content, for writing with the default buffer size.
+     */
+    public static SubjectIdentifierNdjsonWriter open(final Path path) throws IOException {
+        return new SubjectIdentifierNdjsonWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Writes subj as one line. It is not validated.
+     */
+    public void write(final Map<String, Object> subj) throws IOException {
+        final ByteBuffer line = writer.toByteBuffer(subj);
+        if (line.remaining() >= buffer.remaining()) {
+            flushBuffer();
+            if (line.remaining() >= buffer.capacity()) {
+                // Too long to buffer: write it through.
+                writeFully(line);
+                buffer.put((byte) '\n');
+                lineCount++;
+                return;
+            }
+        }
+        buffer.put(line).put((byte) '\n');
+        lineCount++;
+    }
+
+    /**
+     * @return the number of lines written so far.
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Writes the buffered lines to the channel.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    /**
+     * Writes the buffered lines and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(final ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
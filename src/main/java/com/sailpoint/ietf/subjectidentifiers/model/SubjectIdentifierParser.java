@@ -0,0 +1,582 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONArray;
+import com.nimbusds.jose.shaded.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses UTF-8 JSON text directly into a tree of Subject Identifiers, producing the same result as
+ * {@link SubjectIdentifier#convertSubjects(JSONObject)} without first building an intermediate JSONObject.
+ * The Subject Identifier class of each object is chosen as soon as its format member is read; members that
+ * precede the format member are held until then.
+ *
+ * Member names and format names defined by this library are returned as shared String constants, and scratch
+ * buffers are reused between calls. Instances are therefore not thread-safe; use one parser per thread.
+ */
+public final class SubjectIdentifierParser {
+
+    // Guards the recursive descent against stack exhaustion from hostile input.
+    private static final int MAX_DEPTH = 256;
+
+    // Known names indexed by length, so that they can be matched without allocating a String.
+    private static final String[][] KNOWN_NAMES;
+
+    static {
+        final List<String> names = new ArrayList<>();
+        for (SubjectIdentifierMembers member : SubjectIdentifierMembers.values()) {
+            names.add(member.toString());
+        }
+        for (SubjectIdentifierFormats format : SubjectIdentifierFormats.values()) {
+            if (!names.contains(format.toString())) {
+                names.add(format.toString());
+            }
+        }
+        int maxLength = 0;
+        for (String name : names) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+        KNOWN_NAMES = new String[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            final List<String> sameLength = new ArrayList<>();
+            for (String name : names) {
+                if (name.length() == length) {
+                    sameLength.add(name);
+                }
+            }
+            KNOWN_NAMES[length] = sameLength.toArray(new String[0]);
+        }
+    }
+
+    private byte[] buf;
+    private int start;
+    private int pos;
+    private int end;
+    private int depth;
+    // Number of enclosing objects whose Subject Identifier class is not yet known.
+    private int speculative;
+
+    private byte[] input = new byte[1024];
+    private char[] chars = new char[128];
+
+    // Members read before the format member of the objects currently being parsed, innermost last.
+    private final List<String> pendingNames = new ArrayList<>();
+    private final List<Object> pendingValues = new ArrayList<>();
+
+    public SubjectIdentifier parse(final byte[] bytes) throws ParseException, SIValidationException {
+        return parse(bytes, 0, bytes.length);
+    }
+
+    public SubjectIdentifier parse(final byte[] bytes, final int offset, final int length)
+            throws ParseException, SIValidationException {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        buf = bytes;
+        start = offset;
+        pos = offset;
+        end = offset + length;
+        depth = 0;
+        speculative = 0;
+        try {
+            skipWhitespace();
+            if (pos >= end || buf[pos] != '{') {
+                throw error("Subject Identifier must be a JSON object");
+            }
+            final SubjectIdentifier subj = parseSubject();
+            skipWhitespace();
+            if (pos != end) {
+                throw error("Unexpected data after Subject Identifier");
+            }
+            return subj;
+        } finally {
+            buf = null;
+            pendingNames.clear();
+            pendingValues.clear();
+        }
+    }
+
+    /**
+     * Parses the remaining bytes of the buffer without changing its position.
+     */
+    public SubjectIdentifier parse(final ByteBuffer buffer) throws ParseException, SIValidationException {
+        final int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            return parse(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        }
+        ensureInputCapacity(length);
+        buffer.duplicate().get(input, 0, length);
+        return parse(input, 0, length);
+    }
+
+    /**
+     * Reads the stream to its end and parses its content. The stream is not closed.
+     */
+    public SubjectIdentifier parse(final InputStream in) throws IOException, ParseException, SIValidationException {
+        int length = 0;
+        int n;
+        while ((n = in.read(input, length, input.length - length)) >= 0) {
+            length += n;
+            if (length == input.length) {
+                ensureInputCapacity(length + 1);
+            }
+        }
+        return parse(input, 0, length);
+    }
+
+    private void ensureInputCapacity(final int capacity) {
+        if (input.length < capacity) {
+            final byte[] grown = new byte[Math.max(capacity, input.length * 2)];
+            System.arraycopy(input, 0, grown, 0, input.length);
+            input = grown;
+        }
+    }
+
+    private SubjectIdentifier parseSubject() throws ParseException, SIValidationException {
+        enter();
+        pos++; // {
+        final int pendingStart = pendingNames.size();
+        SubjectIdentifier subj = null;
+
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                final String name = parseName();
+                final Object value;
+                if (null == subj) {
+                    // Until the format is known, treat every nested object as a Subject Identifier
+                    // and defer its validation; flushPending() fixes both up once the class is known.
+                    speculative++;
+                    value = parseValue(true, true);
+                    speculative--;
+                    if (SubjectIdentifierMembers.FORMAT.equalsName(name) && value instanceof String) {
+                        subj = SubjectIdentifierFormatRegistry.newSubjectIdentifier((String) value);
+                        flushPending(subj, pendingStart);
+                        subj.put(name, value);
+                    } else {
+                        pendingNames.add(name);
+                        pendingValues.add(value);
+                    }
+                } else {
+                    value = parseValue(subj.isChildSubjectMember(name), subj.isChildSubjectArrayMember(name));
+                    subj.put(name, value);
+                }
+                if (endOfMembers('}')) {
+                    break;
+                }
+            }
+        }
+        if (null == subj) {
+            subj = SubjectIdentifierFormatRegistry.newSubjectIdentifier(null);
+            flushPending(subj, pendingStart);
+        }
+        if (0 == speculative) {
+            // Child Subject Identifiers have been validated already, so only the members remain.
+            subj.validateMembersOrThrow();
+        }
+        depth--;
+        return subj;
+    }
+
+    private void flushPending(final SubjectIdentifier subj, final int pendingStart)
+            throws ParseException, SIValidationException {
+        for (int i = pendingStart; i < pendingNames.size(); i++) {
+            final String name = pendingNames.get(i);
+            Object value = pendingValues.get(i);
+            if (value instanceof SubjectIdentifier) {
+                if (!subj.isChildSubjectMember(name)) {
+                    value = toPlain(value);
+                } else if (0 == speculative) {
+                    ((SubjectIdentifier) value).validateTreeOrThrow();
+                }
+            } else if (value instanceof JSONArray) {
+                if (!subj.isChildSubjectArrayMember(name)) {
+                    toPlain(value);
+                } else if (0 == speculative) {
+                    for (Object item : (JSONArray) value) {
+                        if (item instanceof SubjectIdentifier) {
+                            ((SubjectIdentifier) item).validateTreeOrThrow();
+                        }
+                    }
+                }
+            }
+            subj.put(name, value);
+        }
+        pendingNames.subList(pendingStart, pendingNames.size()).clear();
+        pendingValues.subList(pendingStart, pendingValues.size()).clear();
+    }
+
+    // Turns Subject Identifiers read ahead of their parent's format back into plain JSON objects.
+    // Arrays are updated in place.
+    private static Object toPlain(final Object value) {
+        if (value instanceof SubjectIdentifier) {
+            final JSONObject jo = new JSONObject();
+            for (Map.Entry<String, Object> entry : ((SubjectIdentifier) value).entrySet()) {
+                jo.put(entry.getKey(), toPlain(entry.getValue()));
+            }
+            return jo;
+        }
+        if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            for (int index = 0; index < array.size(); index++) {
+                array.set(index, toPlain(array.get(index)));
+            }
+        }
+        return value;
+    }
+
+    private Object parseValue(final boolean objectIsSubject, final boolean arrayItemsAreSubjects)
+            throws ParseException, SIValidationException {
+        skipWhitespace();
+        switch (peek()) {
+            case '{':
+                return objectIsSubject ? parseSubject() : parseObject();
+            case '[':
+                return parseArray(arrayItemsAreSubjects);
+            case '"':
+                return parseString();
+            case 't':
+                parseLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                parseLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                parseLiteral("null");
+                return null;
+            default:
+                return parseNumber();
+        }
+    }
+
+    private JSONObject parseObject() throws ParseException, SIValidationException {
+        enter();
+        pos++; // {
+        final JSONObject jo = new JSONObject();
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            do {
+                skipWhitespace();
+                final String name = parseName();
+                jo.put(name, parseValue(false, false));
+            } while (!endOfMembers('}'));
+        }
+        depth--;
+        return jo;
+    }
+
+    private JSONArray parseArray(final boolean itemsAreSubjects) throws ParseException, SIValidationException {
+        enter();
+        pos++; // [
+        final JSONArray array = new JSONArray();
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+        } else {
+            do {
+                array.add(parseValue(itemsAreSubjects, false));
+            } while (!endOfMembers(']'));
+        }
+        depth--;
+        return array;
+    }
+
+    // Consumes the separator after a member or item, returning true at the closing character.
+    private boolean endOfMembers(final char close) throws ParseException {
+        skipWhitespace();
+        final byte c = peek();
+        pos++;
+        if (c == ',') {
+            return false;
+        }
+        if (c == close) {
+            return true;
+        }
+        pos--;
+        throw error("Expected , or " + close);
+    }
+
+    private String parseName() throws ParseException {
+        if (peek() != '"') {
+            throw error("Expected member name");
+        }
+        final String name = parseString();
+        skipWhitespace();
+        if (peek() != ':') {
+            throw error("Expected : after member name");
+        }
+        pos++;
+        return name;
+    }
+
+    private String parseString() throws ParseException {
+        pos++; // opening quote
+        final int first = pos;
+        // Fast path for plain ASCII without escapes
+        while (pos < end) {
+            final byte b = buf[pos];
+            if (b == '"') {
+                final int length = pos - first;
+                pos++;
+                final String known = knownName(first, length);
+                return null != known ? known : new String(buf, first, length, StandardCharsets.ISO_8859_1);
+            }
+            if (b == '\\' || b < 0x20) { // also true for all bytes >= 0x80, which are negative
+                break;
+            }
+            pos++;
+        }
+        return parseStringSlow(first);
+    }
+
+    private String knownName(final int offset, final int length) {
+        if (length >= KNOWN_NAMES.length) {
+            return null;
+        }
+        for (String name : KNOWN_NAMES[length]) {
+            int i = 0;
+            while (i < length && buf[offset + i] == name.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String parseStringSlow(final int first) throws ParseException {
+        int length = 0;
+        pos = first;
+        while (true) {
+            if (pos >= end) {
+                throw error("Unterminated string");
+            }
+            ensureCharCapacity(length + 2);
+            final int b = buf[pos] & 0xFF;
+            if (b == '"') {
+                pos++;
+                return new String(chars, 0, length);
+            }
+            if (b == '\\') {
+                pos++;
+                if (pos >= end) {
+                    throw error("Unterminated string");
+                }
+                final byte e = buf[pos++];
+                switch (e) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        chars[length++] = (char) e;
+                        break;
+                    case 'b':
+                        chars[length++] = '\b';
+                        break;
+                    case 'f':
+                        chars[length++] = '\f';
+                        break;
+                    case 'n':
+                        chars[length++] = '\n';
+                        break;
+                    case 'r':
+                        chars[length++] = '\r';
+                        break;
+                    case 't':
+                        chars[length++] = '\t';
+                        break;
+                    case 'u':
+                        chars[length++] = parseHex4();
+                        break;
+                    default:
+                        pos--;
+                        throw error("Invalid escape sequence");
+                }
+            } else if (b < 0x20) {
+                throw error("Unescaped control character in string");
+            } else if (b < 0x80) {
+                chars[length++] = (char) b;
+                pos++;
+            } else {
+                length = decodeUtf8(b, length);
+            }
+        }
+    }
+
+    private char parseHex4() throws ParseException {
+        if (pos > end - 4) {
+            throw error("Invalid unicode escape");
+        }
+        int c = 0;
+        for (int i = 0; i < 4; i++) {
+            final int digit = Character.digit(buf[pos++], 16);
+            if (digit < 0) {
+                pos--;
+                throw error("Invalid unicode escape");
+            }
+            c = (c << 4) | digit;
+        }
+        return (char) c;
+    }
+
+    // Decodes one multi-byte UTF-8 sequence beginning with lead into the scratch chars.
+    private int decodeUtf8(final int lead, final int length) throws ParseException {
+        final int count;
+        int cp;
+        final int min;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            count = 1;
+            cp = lead & 0x1F;
+            min = 0x80;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            count = 2;
+            cp = lead & 0x0F;
+            min = 0x800;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            count = 3;
+            cp = lead & 0x07;
+            min = 0x10000;
+        } else {
+            throw error("Invalid UTF-8 byte");
+        }
+        if (pos + count >= end) {
+            throw error("Truncated UTF-8 sequence");
+        }
+        for (int i = 1; i <= count; i++) {
+            final int b = buf[pos + i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                throw error("Invalid UTF-8 sequence");
+            }
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+            throw error("Invalid UTF-8 sequence");
+        }
+        pos += count + 1;
+        return length + Character.toChars(cp, chars, length);
+    }
+
+    private void ensureCharCapacity(final int capacity) {
+        if (chars.length < capacity) {
+            final char[] grown = new char[Math.max(capacity, chars.length * 2)];
+            System.arraycopy(chars, 0, grown, 0, chars.length);
+            chars = grown;
+        }
+    }
+
+    private Object parseNumber() throws ParseException {
+        final int first = pos;
+        boolean negative = false;
+        if (pos < end && buf[pos] == '-') {
+            negative = true;
+            pos++;
+        }
+        final int digitsStart = pos;
+        long value = 0;
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+            value = value * 10 + (buf[pos] - '0');
+            pos++;
+        }
+        final int digits = pos - digitsStart;
+        if (digits == 0) {
+            throw error("Unexpected character");
+        }
+        if (digits > 1 && buf[digitsStart] == '0') {
+            throw error("Leading zeros are not allowed");
+        }
+        boolean integral = true;
+        if (pos < end && buf[pos] == '.') {
+            integral = false;
+            pos++;
+            requireDigits();
+        }
+        if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            integral = false;
+            pos++;
+            if (pos < end && (buf[pos] == '+' || buf[pos] == '-')) {
+                pos++;
+            }
+            requireDigits();
+        }
+        if (integral && digits <= 18) {
+            return negative ? -value : value;
+        }
+        final String text = new String(buf, first, pos - first, StandardCharsets.ISO_8859_1);
+        if (!integral) {
+            return Double.parseDouble(text);
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return new BigInteger(text);
+        }
+    }
+
+    private void requireDigits() throws ParseException {
+        final int digitsStart = pos;
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+            pos++;
+        }
+        if (pos == digitsStart) {
+            throw error("Expected digit");
+        }
+    }
+
+    private void parseLiteral(final String literal) throws ParseException {
+        if (pos > end - literal.length()) {
+            throw error("Unexpected character");
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                throw error("Unexpected character");
+            }
+        }
+        pos += literal.length();
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            final byte b = buf[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private byte peek() throws ParseException {
+        if (pos >= end) {
+            throw error("Unexpected end of input");
+        }
+        return buf[pos];
+    }
+
+    private void enter() throws ParseException {
+        if (++depth > MAX_DEPTH) {
+            throw error("Subject Identifier nested more than " + MAX_DEPTH + " levels deep");
+        }
+    }
+
+    private ParseException error(final String message) {
+        return new StacklessParseException(message + " at offset " + (pos - start), pos - start);
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reactive stage converting and validating JSON objects, such as the subjects of received Security Event Tokens,
+ * as {@link SubjectIdentifier#convertSubjects(JSONObject)} does. Converted Subject Identifiers are published in the
+ * order received; improper ones are published instead, with their error, by {@link #getRejected()}.
+ *
+ * Objects that arrive while a batch is being converted are gathered into the next batch, of at most the batch
+ * size, which a {@link SubjectIdentifierBatchConverter} spreads over its threads. At most the buffer capacity of
+ * objects are requested from upstream ahead of being published, and publishing blocks while a subscriber's buffer is
+ * full, so a slow subscriber slows the upstream publisher down rather than letting objects pile up. Objects published
+ * while no one subscribes are dropped, so subscribe to this processor before subscribing it upstream.
+ *
+ * Batches are gathered and published by a thread of this processor, which converts its share of each batch itself,
+ * so it never waits for tasks queued behind busy threads of the executor: an executor of a single thread will do.
+ * The thread stops once idle for a second.
+ */
+public final class SubjectIdentifierProcessor implements Flow.Processor<JSONObject, SubjectIdentifier>, AutoCloseable {
+
+    private static final long DRAINER_KEEP_ALIVE_SECONDS = 1;
+
+    /**
+     * Improper object, with the ParseException or SIValidationException it raised, or the RuntimeException raised
+     * converting it.
+     */
+    public static final class Rejected {
+        private final JSONObject input;
+        private final Exception error;
+
+        private Rejected(final JSONObject input, final Exception error) {
+            this.input = input;
+            this.error = error;
+        }
+
+        public JSONObject getInput() {
+            return input;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    private final SubjectIdentifierBatchConverter converter;
+    private final int batchSize;
+    private final int bufferCapacity;
+    private final SubmissionPublisher<SubjectIdentifier> accepted;
+    private final SubmissionPublisher<Rejected> rejected;
+    // Runs drain(), apart from the executor, whose threads drain() may wait for.
+    private final ThreadPoolExecutor drainer;
+
+    private final Queue<JSONObject> queue = new ConcurrentLinkedQueue<>();
+    // Number of requests to drain the queue since the running drain started; one drain runs at a time.
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean completed;
+    private volatile Throwable failure;
+
+    /**
+     * Converts on a ForkJoinPool owned by this processor, and delivers from the common pool.
+     *
+     * @param parallelism - number of threads converting in parallel
+     * @param batchSize - maximum number of objects converted together
+     */
+    public SubjectIdentifierProcessor(final int parallelism, final int batchSize) {
+        this(new SubjectIdentifierBatchConverter(parallelism), ForkJoinPool.commonPool(), batchSize,
+                Flow.defaultBufferSize());
+    }
+
+    /**
+     * Converts and delivers on an Executor owned by the caller, which {@link #close()} leaves running.
+     *
+     * @param executor - executor running conversion and delivery tasks, of any number of threads
+     * @param parallelism - number of threads expected to run tasks in parallel, used to split batches
+     * @param batchSize - maximum number of objects converted together
+     * @param bufferCapacity - maximum number of objects requested from upstream ahead of being published, and of
+     * Subject Identifiers buffered for each subscriber
+     */
+    public SubjectIdentifierProcessor(final Executor executor, final int parallelism, final int batchSize,
+                                      final int bufferCapacity) {
+        this(new SubjectIdentifierBatchConverter(executor, parallelism), executor, batchSize, bufferCapacity);
+    }
+
+    private SubjectIdentifierProcessor(final SubjectIdentifierBatchConverter converter, final Executor executor,
+                                       final int batchSize, final int bufferCapacity) {
+        if (batchSize <= 0) {
+            converter.close();
+            throw new IllegalArgumentException("Batch size must be positive, not " + batchSize);
+        }
+        if (bufferCapacity <= 0) {
+            converter.close();
+            throw new IllegalArgumentException("Buffer capacity must be positive, not " + bufferCapacity);
+        }
+        this.converter = converter;
+        this.batchSize = batchSize;
+        this.bufferCapacity = bufferCapacity;
+        this.accepted = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.rejected = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.drainer = new ThreadPoolExecutor(1, 1, DRAINER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "subject-identifier-processor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.drainer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the publisher of improper objects.
+     */
+    public Flow.Publisher<Rejected> getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super SubjectIdentifier> subscriber) {
+        accepted.subscribe(subscriber);
+    }
+
+    /**
+     * Accepts a single upstream subscription; any further one is cancelled.
+     */
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        if (null != upstream) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(bufferCapacity);
+    }
+
+    @Override
+    public void onNext(final JSONObject item) {
+        if (null == item) {
+            throw new NullPointerException("item");
+        }
+        queue.add(item);
+        requestDrain();
+    }
+
+    /**
+     * Publishes the objects received so far, then closes both publishers with the error.
+     */
+    @Override
+    public void onError(final Throwable throwable) {
+        failure = throwable;
+        completed = true;
+        requestDrain();
+    }
+
+    /**
+     * Publishes the objects received so far, then closes both publishers.
+     */
+    @Override
+    public void onComplete() {
+        completed = true;
+        requestDrain();
+    }
+
+    /**
+     * Cancels the upstream subscription, closes both publishers, and shuts down the threads owned by this
+     * processor.
+     */
+    @Override
+    public void close() {
+        final Flow.Subscription subscription = upstream;
+        if (null != subscription) {
+            subscription.cancel();
+        }
+        accepted.close();
+        rejected.close();
+        converter.close();
+        drainer.shutdown();
+    }
+
+    private void requestDrain() {
+        if (drainRequests.getAndIncrement() == 0) {
+            try {
+                drainer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Closed: what is left would be dropped anyway.
+                queue.clear();
+                drainRequests.set(0);
+            }
+        }
+    }
+
+    private void drain() {
+        int requests = drainRequests.get();
+        try {
+            while (true) {
+                // Read before polling: once completed, every object has been queued.
+                final boolean done = completed;
+                if (accepted.isClosed()) {
+                    // Closed by close() or an unexpected error: drop what is left.
+                    queue.clear();
+                }
+                List<JSONObject> batch = poll();
+                while (!batch.isEmpty()) {
+                    publish(batch, converter.convert(batch));
+                    upstream.request(batch.size());
+                    batch = poll();
+                }
+                if (done && !accepted.isClosed()) {
+                    closePublishers(failure);
+                }
+                requests = drainRequests.addAndGet(-requests);
+                if (requests == 0) {
+                    return;
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            // Only unexpected errors escape conversion; stop the stream rather than lose objects silently.
+            upstream.cancel();
+            closePublishers(e);
+            drainRequests.set(0);
+            throw e;
+        }
+    }
+
+    private List<JSONObject> poll() {
+        final List<JSONObject> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        JSONObject item;
+        while (batch.size() < batchSize && null != (item = queue.poll())) {
+            batch.add(item);
+        }
+        return batch;
+    }
+
+    private void publish(final List<JSONObject> batch, final List<SubjectIdentifierBatchConverter.Result> results) {
+        for (int index = 0; index < results.size(); index++) {
+            final SubjectIdentifierBatchConverter.Result result = results.get(index);
+            if (result.isSuccess()) {
+                accepted.submit(result.getSubject());
+            } else {
+                rejected.submit(new Rejected(batch.get(index), result.getError()));
+            }
+        }
+    }
+
+    private void closePublishers(final Throwable error) {
+        if (null == error) {
+            accepted.close();
+            rejected.close();
+        } else {
+            accepted.closeExceptionally(error);
+            rejected.closeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.net.URI;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Rules of a Subject Identifier format, declared once with the {@link Builder} and compiled into a flat list of
+ * checks. Each check reads its member once and reports problems to an {@link SIValidationResult}; no reflection is
+ * used and nothing is allocated unless a problem is found.
+ *
+ * The Subject Identifier classes of this library validate their members with a plan, and a plan can be registered
+ * as the validator of an x- format with {@link SubjectIdentifierFormatRegistry#register(String, java.util.function.Supplier, SubjectIdentifierValidator)}.
+ */
+public final class SubjectIdentifierValidationPlan implements SubjectIdentifierValidator {
+
+    private static final int EQUALS = 0;
+    private static final int REQUIRED = 1;
+    private static final int NON_EMPTY_STRING = 2;
+    private static final int STRING_OR_URI = 3;
+    private static final int URI_WITH_SCHEME = 4;
+    private static final int ONE_OF = 5;
+    private static final int NON_EMPTY_ARRAY = 6;
+    private static final int E164 = 7;
+    private static final int ADDR_SPEC = 8;
+    private static final int DID_URL = 9;
+
+    // Scheme of the acct URIs of RFC 7565, whose syntax is checked beyond that of RFC 3986.
+    private static final String ACCT = "acct";
+
+    private final String label;
+    private final int[] kinds;
+    private final String[] members;
+    private final Object[] arguments;
+
+    private SubjectIdentifierValidationPlan(final String label, final int[] kinds, final String[] members,
+                                            final Object[] arguments) {
+        this.label = label;
+        this.kinds = kinds;
+        this.members = members;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Runs every check of the plan, reporting each problem found to result.
+     *
+     * @param subj - Subject Identifier or JSON object
+     * @param result - collects the problems found
+     */
+    public void validate(final Map<String, Object> subj, final SIValidationResult result) {
+        for (int i = 0; i < kinds.length; i++) {
+            final String member = members[i];
+            final Object value = subj.get(member);
+            switch (kinds[i]) {
+                case EQUALS:
+                    checkEquals(result, member, value, (String) arguments[i]);
+                    break;
+                case REQUIRED:
+                    checkRequired(result, member, value);
+                    break;
+                case NON_EMPTY_STRING:
+                    checkNonEmptyString(result, member, value);
+                    break;
+                case STRING_OR_URI:
+                    checkStringOrURI(result, member, value);
+                    break;
+                case URI_WITH_SCHEME:
+                    checkURIWithScheme(result, member, value, (String) arguments[i]);
+                    break;
+                case ONE_OF:
+                    checkOneOf(result, member, value, (Set<?>) arguments[i]);
+                    break;
+                case NON_EMPTY_ARRAY:
+                    checkNonEmptyArray(result, member, value);
+                    break;
+                case E164:
+                    checkE164(result, member, value);
+                    break;
+                case DID_URL:
+                    checkDIDURL(result, member, value);
+                    break;
+                case ADDR_SPEC:
+                    checkAddrSpec(result, member, value, (EmailSubjectIdentifier.AddrSpecPolicy) arguments[i]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown check " + kinds[i]);
+            }
+        }
+    }
+
+    /**
+     * Runs the plan as a registered validator, throwing the first problem found.
+     */
+    @Override
+    public void validate(final SubjectIdentifier subj) throws ParseException, SIValidationException {
+        final SIValidationResult result = new SIValidationResult();
+        validate(subj, result);
+        result.throwIfInvalid();
+    }
+
+    private void checkEquals(final SIValidationResult result, final String member, final Object value,
+                             final String expected) {
+        if (null == value) {
+            if (SubjectIdentifierMembers.FORMAT.toString().equals(member)) {
+                result.add(SIValidationErrorCode.FORMAT_MISSING, member,
+                        label + " member " + member + " must be present and equal to " + expected);
+            } else {
+                checkRequired(result, member, null);
+            }
+        } else if (!(value instanceof String)) {
+            notString(result, member);
+        } else if (!expected.equals(value)) {
+            result.add(SIValidationErrorCode.FORMAT_MISMATCH, member, label + " member " + member + " must be " + expected);
+        }
+    }
+
+    private boolean checkRequired(final SIValidationResult result, final String member, final Object value) {
+        if (null == value) {
+            result.add(SIValidationErrorCode.MEMBER_MISSING, member, label + " member " + member + " must not be null.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkNonEmptyString(final SIValidationResult result, final String member, final Object value) {
+        if (!checkRequired(result, member, value)) {
+            return false;
+        }
+        if (!(value instanceof String)) {
+            notString(result, member);
+            return false;
+        }
+        if (((String) value).isEmpty()) {
+            result.add(SIValidationErrorCode.MEMBER_EMPTY, member, label + " member " + member + " must not be an empty String.");
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * https://tools.ietf.org/html/rfc7519
+     * StringOrURI
+     *       A JSON string value, with the additional requirement that while
+     *       arbitrary string values MAY be used, any value containing a ":"
+     *       character MUST be a URI [RFC3986].
+     */
+    private void checkStringOrURI(final SIValidationResult result, final String member, final Object value) {
+        if (!checkNonEmptyString(result, member, value)) {
+            return;
+        }
+        final String s = (String) value;
+        if (s.indexOf(':') < 0) return; // No :, not a URI. Plain strings are OK.
+
+        if (URISyntax.schemeLength(s) < 0) {
+            invalidURI(result, member);
+        }
+    }
+
+    private void checkURIWithScheme(final SIValidationResult result, final String member, final Object value,
+                                    final String scheme) {
+        if (!checkRequired(result, member, value)) {
+            return;
+        }
+        if (!(value instanceof URI) && !(value instanceof String)) {
+            result.add(SIValidationErrorCode.MEMBER_TYPE, member, label + " member " + member + " must be a String or URI");
+            return;
+        }
+        final String s = value.toString();
+        final int schemeLength = URISyntax.schemeLength(s);
+        if (schemeLength < 0) {
+            invalidURI(result, member);
+        } else if (!URISyntax.hasScheme(s, schemeLength, scheme)) {
+            result.add(SIValidationErrorCode.MEMBER_INVALID, member,
+                    label + " member " + member + " must have scheme " + scheme + ":");
+        } else if (ACCT.equalsIgnoreCase(scheme) && !URISyntax.isAcctURI(s)) {
+            result.add(SIValidationErrorCode.MEMBER_INVALID, member, label + " member " + member + " invalid acct URI");
+        }
+    }
+
+    private void checkOneOf(final SIValidationResult result, final String member, final Object value,
+                            final Set<?> allowed) {
+        if (checkRequired(result, member, value) && !allowed.contains(value.toString())) {
+            result.add(SIValidationErrorCode.MEMBER_INVALID, member, label + " member " + member + " has an invalid value.");
+        }
+    }
+
+    private void checkNonEmptyArray(final SIValidationResult result, final String member, final Object value) {
+        if (!checkRequired(result, member, value)) {
+            return;
+        }
+        if (!(value instanceof List)) {
+            result.add(SIValidationErrorCode.MEMBER_TYPE, member, label + " member " + member + " must be a JSON Array");
+        } else if (((List<?>) value).isEmpty()) {
+            result.add(SIValidationErrorCode.MEMBER_EMPTY, member, label + " member " + member + " must have one or more items.");
+        }
+    }
+
+    private void checkE164(final SIValidationResult result, final String member, final Object value) {
+        if (checkNonEmptyString(result, member, value) && !PhoneNumberSyntax.isE164((String) value)) {
+            result.add(SIValidationErrorCode.MEMBER_INVALID, member,
+                    label + " member " + member + " must be an E.164 telephone number.");
+        }
+    }
+
+    private void checkAddrSpec(final SIValidationResult result, final String member, final Object value,
+                               final EmailSubjectIdentifier.AddrSpecPolicy policy) {
+        if (checkNonEmptyString(result, member, value)
+                && EmailSubjectIdentifier.indexOfDomainSeparator((String) value, policy) < 0) {
+            result.add(SIValidationErrorCode.MEMBER_INVALID, member,
+                    label + " member " + member + " must be an addr-spec email address.");
+        }
+    }
+
+    private void checkDIDURL(final SIValidationResult result, final String member, final Object value) {
+        if (checkNonEmptyString(result, member, value) && ((String) value).startsWith(DIDSyntax.SCHEME)
+                && DIDSyntax.scan((String) value) < 0) {
+            result.add(SIValidationErrorCode.MEMBER_INVALID, member, label + " member " + member + " invalid DID URL");
+        }
+    }
+
+    private void notString(final SIValidationResult result, final String member) {
+        result.add(SIValidationErrorCode.MEMBER_NOT_STRING, member, label + " member " + member + " must be a String.");
+    }
+
+    private void invalidURI(final SIValidationResult result, final String member) {
+        result.add(SIValidationErrorCode.MEMBER_INVALID, member, label + " member " + member + " invalid URI");
+    }
+
+    /**
+     * Declares the rules of a format, in the order they are checked.
+     */
+    public static class Builder {
+
+        private final String label;
+        private final List<Integer> kinds = new ArrayList<>();
+        private final List<String> members = new ArrayList<>();
+        private final List<Object> arguments = new ArrayList<>();
+
+        /**
+         * @param label - name used in the messages of problems, such as the Subject Identifier class
+         */
+        public Builder(final String label) {
+            this.label = label;
+        }
+
+        private Builder add(final int kind, final String member, final Object argument) {
+            kinds.add(kind);
+            members.add(member);
+            arguments.add(argument);
+            return this;
+        }
+
+        /**
+         * The format member must be present and equal to format.
+         */
+        public Builder format(final String format) {
+            return add(EQUALS, SubjectIdentifierMembers.FORMAT.toString(), format);
+        }
+
+        public Builder format(final SubjectIdentifierFormats format) {
+            return format(format.toString());
+        }
+
+        /**
+         * The member must be present and equal to value, as for members that play the role of format.
+         */
+        public Builder equalTo(final String member, final String value) {
+            return add(EQUALS, member, value);
+        }
+
+        /**
+         * The member must be present and non-null.
+         */
+        public Builder required(final String member) {
+            return add(REQUIRED, member, null);
+        }
+
+        /**
+         * The member must be a non-empty String.
+         */
+        public Builder nonEmptyString(final String member) {
+            return add(NON_EMPTY_STRING, member, null);
+        }
+
+        /**
+         * The member must be a non-empty String that, if it contains a colon, is a URI (StringOrURI of RFC 7519).
+         */
+        public Builder stringOrURI(final String member) {
+            return add(STRING_OR_URI, member, null);
+        }
+
+        /**
+         * The member must be a URI, or a String holding one, with the given scheme. URIs with the acct scheme must
+         * also be acct URIs as defined in RFC 7565.
+         */
+        public Builder uri(final String member, final String scheme) {
+            return add(URI_WITH_SCHEME, member, scheme);
+        }
+
+        /**
+         * The member must be present with a value whose String form is that of one of the allowed values, such as
+         * the constants of {@link OAuthTokenType}.
+         */
+        public Builder oneOf(final String member, final Object... allowed) {
+            final Set<String> names = new HashSet<>();
+            for (Object value : allowed) {
+                names.add(value.toString());
+            }
+            return add(ONE_OF, member, Collections.unmodifiableSet(names));
+        }
+
+        /**
+         * The member must be a JSON array with one or more items.
+         */
+        public Builder nonEmptyArray(final String member) {
+            return add(NON_EMPTY_ARRAY, member, null);
+        }
+
+        /**
+         * The member must be a String holding a telephone number in the E.164 format, such as +12065550100.
+         */
+        public Builder e164(final String member) {
+            return add(E164, member, null);
+        }
+
+        /**
+         * The member must be a String holding an email address, an addr-spec of RFC 5322 under the policy.
+         */
+        public Builder addrSpec(final String member, final EmailSubjectIdentifier.AddrSpecPolicy policy) {
+            return add(ADDR_SPEC, member, Objects.requireNonNull(policy, "policy"));
+        }
+
+        /**
+         * The member must be a non-empty String that, if it begins with did:, is a DID URL as defined by
+         * W3C DID Core.
+         */
+        public Builder didURL(final String member) {
+            return add(DID_URL, member, null);
+        }
+
+        public SubjectIdentifierValidationPlan build() {
+            final int[] compiled = new int[kinds.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = kinds.get(i);
+            }
+            return new SubjectIdentifierValidationPlan(label, compiled, members.toArray(new String[0]),
+                    arguments.toArray());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SubjectIdentifierValidationPlan{" + label + ", " + Arrays.toString(members) + "}";
+    }
+}
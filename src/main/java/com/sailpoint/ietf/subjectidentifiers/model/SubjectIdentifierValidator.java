@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+
+/**
+ * Format specific checks registered with the {@link SubjectIdentifierFormatRegistry}. The validator is called from
+ * {@link SubjectIdentifier#validate()} for every Subject Identifier of its format, in addition to the checks of the
+ * Subject Identifier class itself, and only needs to examine the members of the Subject Identifier it is given.
+ */
+@FunctionalInterface
+public interface SubjectIdentifierValidator {
+
+    SubjectIdentifierValidator NONE = subj -> { };
+
+    void validate(SubjectIdentifier subj) throws ParseException, SIValidationException;
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of a Subject Identifier that adopts an existing map, such as a claim of a JWTClaimsSet, without
+ * copying it. Members are read from the adopted map as they are. A child Subject Identifier is converted into the
+ * class registered for its format, and validated, only when it is first requested through
+ * {@link #getChild(String)} or {@link #getChildren(String)}; other children are never converted. The subject as a
+ * whole is converted and validated by {@link #toSubjectIdentifier()}.
+ *
+ * The view does not change the adopted map, nor the JSON objects and arrays it holds, which must not be changed
+ * while the view is in use. Since routing on the format and a few members only reads those members, the
+ * adopted map can be given to {@link SubjectMatcher} and {@link SubjectIndex} through {@link #getMap()}. A view is
+ * not safe to share between threads.
+ */
+public final class SubjectIdentifierView {
+
+    private final Map<String, Object> map;
+    // Converted children, keyed on member name: a SubjectIdentifier or a List of them.
+    private Map<String, Object> children;
+    private SubjectIdentifier converted;
+
+    private SubjectIdentifierView(final Map<String, Object> map) {
+        this.map = map;
+    }
+
+    /**
+     * @param map - Subject Identifier as a map of members, adopted without copying.
+     * @return a view of map, or null if map is null.
+     */
+    public static SubjectIdentifierView adopt(final Map<String, Object> map) {
+        return null == map ? null : new SubjectIdentifierView(map);
+    }
+
+    /**
+     * @return the adopted map.
+     */
+    public Map<String, Object> getMap() {
+        return map;
+    }
+
+    /**
+     * @return the format member, or null if absent or not a string.
+     */
+    public String getFormat() {
+        final Object format = map.get(SubjectIdentifierMembers.FORMAT.toString());
+        return format instanceof String ? (String) format : null;
+    }
+
+    /**
+     * @param member - member name
+     * @return the value of the member as held by the adopted map, without conversion.
+     */
+    public Object get(final String member) {
+        return map.get(member);
+    }
+
+    /**
+     * @param member - member
+     * @return the string value of the member, or null if absent.
+     * @throws ParseException if the member is not a string.
+     */
+    public String getString(final SubjectIdentifierMembers member) throws ParseException {
+        final Object value = map.get(member.toString());
+        if (null == value || value instanceof String) {
+            return (String) value;
+        }
+        throw unexpectedType(member.toString());
+    }
+
+    /**
+     * @param member - member
+     * @return the child Subject Identifier held by the member, converted and validated on first access, or null if
+     * absent.
+     * @throws ParseException if the member is not a JSON object.
+     * @throws SIValidationException if the child is not a valid Subject Identifier.
+     */
+    public SubjectIdentifier getChild(final SubjectIdentifierMembers member) throws ParseException, SIValidationException {
+        return getChild(member.toString());
+    }
+
+    /**
+     * @param member - member name
+     * @return the child Subject Identifier held by the member, converted and validated on first access, or null if
+     * absent.
+     * @throws ParseException if the member is not a JSON object.
+     * @throws SIValidationException if the child is not a valid Subject Identifier.
+     */
+    public SubjectIdentifier getChild(final String member) throws ParseException, SIValidationException {
+        final Object cached = null == children ? null : children.get(member);
+        if (cached instanceof SubjectIdentifier) {
+            return (SubjectIdentifier) cached;
+        }
+        final Object value = map.get(member);
+        if (null == value) {
+            return null;
+        }
+        final SubjectIdentifier child = convert(member, value);
+        remember(member, child);
+        return child;
+    }
+
+    /**
+     * @param member - member name, such as identifiers
+     * @return the child Subject Identifiers held by the JSON array of the member, converted and validated on first
+     * access, or null if absent.
+     * @throws ParseException if the member is not a JSON array of JSON objects.
+     * @throws SIValidationException if a child is not a valid Subject Identifier.
+     */
+    @SuppressWarnings("unchecked")
+    public List<SubjectIdentifier> getChildren(final String member) throws ParseException, SIValidationException {
+        final Object cached = null == children ? null : children.get(member);
+        if (cached instanceof List) {
+            return (List<SubjectIdentifier>) cached;
+        }
+        final Object value = map.get(member);
+        if (null == value) {
+            return null;
+        }
+        if (!(value instanceof List)) {
+            throw unexpectedType(member);
+        }
+        final List<?> items = (List<?>) value;
+        final List<SubjectIdentifier> converted = new ArrayList<>(items.size());
+        for (Object item : items) {
+            converted.add(convert(member, item));
+        }
+        final List<SubjectIdentifier> result = Collections.unmodifiableList(converted);
+        remember(member, result);
+        return result;
+    }
+
+    /**
+     * @return the whole subject converted into a tree of Subject Identifiers and validated, as
+     * {@link SubjectIdentifier#convertSubjects(JSONObject)} would. Children already returned by
+     * {@link #getChild(String)} or {@link #getChildren(String)} become part of the tree rather than being converted
+     * again. The result is computed once per view.
+     */
+    public SubjectIdentifier toSubjectIdentifier() throws ParseException, SIValidationException {
+        if (null == converted) {
+            converted = map instanceof SubjectIdentifier ? (SubjectIdentifier) map
+                    : SubjectIdentifier.convertSubjects(toJSONObject(map), children);
+        }
+        return converted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SubjectIdentifier convert(final String member, final Object value)
+            throws ParseException, SIValidationException {
+        if (value instanceof SubjectIdentifier) {
+            return (SubjectIdentifier) value;
+        }
+        if (!(value instanceof Map)) {
+            throw unexpectedType(member);
+        }
+        return SubjectIdentifier.convertSubjects(toJSONObject((Map<String, Object>) value));
+    }
+
+    // convertSubjects copies the members it is given anyway, so a map of another class is copied shallowly here.
+    private static JSONObject toJSONObject(final Map<String, Object> value) {
+        return value instanceof JSONObject ? (JSONObject) value : new JSONObject(value);
+    }
+
+    private void remember(final String member, final Object child) {
+        if (null == children) {
+            children = new HashMap<>(4);
+        }
+        children.put(member, child);
+    }
+
+    private static ParseException unexpectedType(final String member) {
+        return new StacklessParseException("Unexpected type of JSON object member with key " + member, 0);
+    }
+}
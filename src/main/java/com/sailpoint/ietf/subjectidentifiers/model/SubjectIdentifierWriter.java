@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a tree of Subject Identifiers, or any JSON object, as compact UTF-8 JSON text straight into a
+ * ByteBuffer, OutputStream or Appendable, without building intermediate Strings. The counterpart of
+ * {@link SubjectIdentifierParser}: its output parses back to an equal tree.
+ *
+ * Member names and format names defined by this library are written from UTF-8 encodings prepared once, and
+ * Strings made of ASCII characters that need no escaping are copied directly. The output is built in a buffer
+ * that is reused between calls. Instances are therefore not thread-safe; use one writer per thread.
+ *
+ * The canonical form, written by {@link #toCanonicalBytes(Map)} and digested by {@link #fingerprint(Map)}, is the
+ * same JSON text with the members of every object sorted by name, and the items of arrays of child Subject
+ * Identifiers, such as the identifiers of aliases, sorted by their own canonical form. Trees that differ only in
+ * member or alias order therefore have the same canonical form.
+ */
+public final class SubjectIdentifierWriter {
+
+    // Maximum nesting, matching the parser, so that cyclic maps fail instead of exhausting the stack.
+    private static final int MAX_DEPTH = 256;
+
+    // "name": for every known member name, and "value" for every known format name.
+    private static final Map<String, byte[]> ENCODED_NAMES = new HashMap<>();
+    private static final Map<String, byte[]> ENCODED_VALUES = new HashMap<>();
+
+    // Escape sequence for each ASCII character that needs one, null for those written as they are.
+    private static final byte[][] ESCAPES = new byte[128][];
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = new byte[]{'\\', 'u', '0', '0', HEX[c >> 4], HEX[c & 0xF]};
+        }
+        ESCAPES['\b'] = new byte[]{'\\', 'b'};
+        ESCAPES['\f'] = new byte[]{'\\', 'f'};
+        ESCAPES['\n'] = new byte[]{'\\', 'n'};
+        ESCAPES['\r'] = new byte[]{'\\', 'r'};
+        ESCAPES['\t'] = new byte[]{'\\', 't'};
+        ESCAPES['"'] = new byte[]{'\\', '"'};
+        ESCAPES['\\'] = new byte[]{'\\', '\\'};
+
+        for (SubjectIdentifierMembers member : SubjectIdentifierMembers.values()) {
+            ENCODED_NAMES.put(member.toString(), ("\"" + member + "\":").getBytes(StandardCharsets.UTF_8));
+        }
+        for (SubjectIdentifierFormats format : SubjectIdentifierFormats.values()) {
+            ENCODED_VALUES.put(format.toString(), ("\"" + format + "\"").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private byte[] buf = new byte[512];
+    private int pos;
+    // True while everything written since the last reset is ASCII.
+    private boolean ascii;
+    private boolean canonical;
+    private MessageDigest sha256;
+
+    // View of the buffer as characters, for appending ASCII output without decoding it.
+    private final CharSequence asciiView = new CharSequence() {
+        @Override
+        public int length() {
+            return pos;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) buf[index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int from, final int to) {
+            return new String(buf, from, to - from, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, 0, pos, StandardCharsets.US_ASCII);
+        }
+    };
+
+    /**
+     * Writes subj to the buffer, starting at its position, and advances the position past the output.
+     *
+     * @throws java.nio.BufferOverflowException - if the remaining space is too small, in which case the buffer
+     * is left unchanged
+     */
+    public void write(final Map<String, Object> subj, final ByteBuffer out) {
+        encode(subj);
+        out.put(buf, 0, pos);
+    }
+
+    /**
+     * Writes subj to the stream, which is neither flushed nor closed.
+     */
+    public void write(final Map<String, Object> subj, final OutputStream out) throws IOException {
+        encode(subj);
+        out.write(buf, 0, pos);
+    }
+
+    public void write(final Map<String, Object> subj, final Appendable out) throws IOException {
+        encode(subj);
+        if (ascii) {
+            out.append(asciiView, 0, pos);
+        } else {
+            out.append(new String(buf, 0, pos, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return the output for subj, in a read-only buffer sharing the writer's storage. It is only valid until the
+     * next call on this writer.
+     */
+    public ByteBuffer toByteBuffer(final Map<String, Object> subj) {
+        encode(subj);
+        return ByteBuffer.wrap(buf, 0, pos).asReadOnlyBuffer();
+    }
+
+    public byte[] toBytes(final Map<String, Object> subj) {
+        encode(subj);
+        return Arrays.copyOf(buf, pos);
+    }
+
+    public String toJSONString(final Map<String, Object> subj) {
+        encode(subj);
+        return new String(buf, 0, pos, ascii ? StandardCharsets.US_ASCII : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the canonical form of subj as UTF-8 JSON text.
+     */
+    public byte[] toCanonicalBytes(final Map<String, Object> subj) {
+        encodeCanonical(subj);
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /**
+     * @return the SHA-256 digest of the canonical form of subj, computed without building the text as a String.
+     */
+    public byte[] fingerprint(final Map<String, Object> subj) {
+        encodeCanonical(subj);
+        if (null == sha256) {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform is required to support SHA-256.
+                throw new IllegalStateException(e);
+            }
+        }
+        sha256.update(buf, 0, pos);
+        return sha256.digest();
+    }
+
+    private void encode(final Map<String, Object> subj) {
+        pos = 0;
+        ascii = true;
+        canonical = false;
+        writeObject(subj, 0);
+    }
+
+    private void encodeCanonical(final Map<String, Object> subj) {
+        pos = 0;
+        ascii = true;
+        canonical = true;
+        writeObject(subj, 0);
+    }
+
+    private void writeObject(final Map<?, ?> map, final int depth) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalArgumentException("Subject Identifier nested deeper than " + MAX_DEPTH);
+        }
+        writeByte('{');
+        if (canonical) {
+            final String[] names = new String[map.size()];
+            int count = 0;
+            for (Object key : map.keySet()) {
+                names[count++] = String.valueOf(key);
+            }
+            Arrays.sort(names);
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                final Object value = map.get(names[i]);
+                writeName(names[i]);
+                if (value instanceof List && isChildSubjectArray(map, names[i])) {
+                    writeSortedArray((List<?>) value, depth + 1);
+                } else {
+                    writeValue(value, depth + 1);
+                }
+            }
+        } else {
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    writeByte(',');
+                }
+                first = false;
+                writeName(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue(), depth + 1);
+            }
+        }
+        writeByte('}');
+    }
+
+    private void writeName(final String name) {
+        final byte[] encodedName = ENCODED_NAMES.get(name);
+        if (null != encodedName) {
+            writeBytes(encodedName);
+        } else {
+            writeString(name);
+            writeByte(':');
+        }
+    }
+
+    // Whether the items of the member's array are child Subject Identifiers, whose order carries no meaning.
+    private static boolean isChildSubjectArray(final Map<?, ?> map, final String name) {
+        if (map instanceof SubjectIdentifier) {
+            return ((SubjectIdentifier) map).isChildSubjectArrayMember(name);
+        }
+        return SubjectIdentifierMembers.IDENTIFIERS.equalsName(name)
+                && SubjectIdentifierFormats.ALIASES.toString().equals(map.get(SubjectIdentifierMembers.FORMAT.toString()));
+    }
+
+    // Writes the items in the order of their canonical form, by writing them first and then reordering the output.
+    private void writeSortedArray(final List<?> list, final int depth) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalArgumentException("Subject Identifier nested deeper than " + MAX_DEPTH);
+        }
+        writeByte('[');
+        final int start = pos;
+        final int size = list.size();
+        final int[] ends = new int[size];
+        for (int i = 0; i < size; i++) {
+            writeValue(list.get(i), depth + 1);
+            ends[i] = pos - start;
+        }
+        final byte[] items = Arrays.copyOfRange(buf, start, pos);
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        final Comparator<Integer> byContent = (a, b) -> Arrays.compareUnsigned(
+                items, 0 == a ? 0 : ends[a - 1], ends[a], items, 0 == b ? 0 : ends[b - 1], ends[b]);
+        Arrays.sort(order, byContent);
+        pos = start;
+        ensureCapacity(items.length + size + 1);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buf[pos++] = ',';
+            }
+            final int from = 0 == order[i] ? 0 : ends[order[i] - 1];
+            System.arraycopy(items, from, buf, pos, ends[order[i]] - from);
+            pos += ends[order[i]] - from;
+        }
+        writeByte(']');
+    }
+
+    private void writeArray(final List<?> list, final int depth) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalArgumentException("Subject Identifier nested deeper than " + MAX_DEPTH);
+        }
+        writeByte('[');
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            writeValue(list.get(i), depth + 1);
+        }
+        writeByte(']');
+    }
+
+    private void writeValue(final Object value, final int depth) {
+        if (value instanceof String) {
+            final byte[] encoded = ENCODED_VALUES.get(value);
+            if (null != encoded) {
+                writeBytes(encoded);
+            } else {
+                writeString((String) value);
+            }
+        } else if (value instanceof Map) {
+            writeObject((Map<?, ?>) value, depth);
+        } else if (value instanceof List) {
+            writeArray((List<?>) value, depth);
+        } else if (null == value) {
+            writeBytes(NULL);
+        } else if (value instanceof Boolean) {
+            writeBytes((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            final double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                // JSON has no representation for these.
+                writeBytes(NULL);
+            } else {
+                writeAscii(value.toString());
+            }
+        } else if (value instanceof Number) {
+            // BigInteger, BigDecimal and other exact numbers.
+            writeAscii(value.toString());
+        } else {
+            // URIs, enum constants and anything else are written as the String of their value.
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(final String s) {
+        final int length = s.length();
+        // Room for the quotes and for every character as an escape or a 3 byte UTF-8 sequence.
+        ensureCapacity(length * 6 + 2);
+        final byte[] b = buf;
+        int p = pos;
+        b[p++] = '"';
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                final byte[] escape = ESCAPES[c];
+                if (null == escape) {
+                    b[p++] = (byte) c;
+                } else {
+                    System.arraycopy(escape, 0, b, p, escape.length);
+                    p += escape.length;
+                }
+                continue;
+            }
+            ascii = false;
+            if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                // Unpaired surrogates cannot be encoded and are replaced, as String.getBytes() does.
+                final char e = Character.isSurrogate(c) ? '\uFFFD' : c;
+                b[p++] = (byte) (0xE0 | (e >> 12));
+                b[p++] = (byte) (0x80 | ((e >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (e & 0x3F));
+            }
+        }
+        b[p++] = '"';
+        pos = p;
+    }
+
+    private void writeLong(final long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        long v = value;
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        int p = pos + digits;
+        pos = p;
+        do {
+            buf[--p] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+    }
+
+    private void writeAscii(final String s) {
+        final int length = s.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void writeByte(final char c) {
+        ensureCapacity(1);
+        buf[pos++] = (byte) c;
+    }
+
+    private void ensureCapacity(final int needed) {
+        if (pos + needed > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + needed));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent index from Subject Identifiers to values, such as the subscriptions of a receiver, answering whether
+ * the subject of an event is one of interest without scanning every entry.
+ *
+ * Subjects are keyed on their format and identifying members (email, iss and sub, id, uri, url, phone_number, ...,
+ * see {@link SubjectIdentifierFormats#getIdentifyingMembers()}), so other members do not affect matching. Aliases
+ * Subject Identifiers are expanded: adding one indexes the value under each of its identifiers, and looking one up
+ * matches if any of its identifiers does. Complex subjects match on their complex members (user, device, ...), each
+ * keyed in turn on its identifying members. Subjects of formats without identifying members match on their whole
+ * content, but for the Subject Identifiers they hold.
+ *
+ * Lookups do not lock. Each key holds an immutable set of values that updates replace, so that updates of
+ * different keys proceed in parallel and readers always see a complete set.
+ *
+ * @param <V> - type of the indexed values
+ */
+public final class SubjectIndex<V> {
+
+    private static final String FORMAT = SubjectIdentifierMembers.FORMAT.toString();
+    private static final String IDENTIFIERS = SubjectIdentifierMembers.IDENTIFIERS.toString();
+
+    private final ConcurrentHashMap<SubjectIdentifierKey, Set<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes value under subj, or under each identifier of subj if it is an Aliases Subject Identifier.
+     *
+     * @param subj - Subject Identifier or JSON object
+     * @param value - value to return from lookups of matching subjects
+     */
+    public void add(final Map<String, Object> subj, final V value) {
+        if (null == value) {
+            throw new IllegalArgumentException("Indexed value must not be null.");
+        }
+        final List<?> identifiers = aliasIdentifiers(subj);
+        if (null == identifiers) {
+            add(SubjectIdentifierKey.ofIdentifyingMembers(subj), value);
+            return;
+        }
+        for (Object identifier : identifiers) {
+            if (identifier instanceof Map) {
+                add(SubjectIdentifierKey.ofIdentifyingMembers(asMap(identifier)), value);
+            }
+        }
+    }
+
+    private void add(final SubjectIdentifierKey key, final V value) {
+        entries.compute(key, (k, values) -> {
+            if (null == values) {
+                return Collections.singleton(value);
+            }
+            if (values.contains(value)) {
+                return values;
+            }
+            final Set<V> updated = new LinkedHashSet<>(values);
+            updated.add(value);
+            return Collections.unmodifiableSet(updated);
+        });
+    }
+
+    /**
+     * Removes value from subj, or from each identifier of subj if it is an Aliases Subject Identifier.
+     *
+     * @param subj - Subject Identifier or JSON object
+     * @param value - indexed value
+     * @return true if value was indexed under subj or one of its identifiers
+     */
+    public boolean remove(final Map<String, Object> subj, final V value) {
+        final List<?> identifiers = aliasIdentifiers(subj);
+        if (null == identifiers) {
+            return remove(SubjectIdentifierKey.ofIdentifyingMembers(subj), value);
+        }
+        boolean removed = false;
+        for (Object identifier : identifiers) {
+            if (identifier instanceof Map) {
+                removed |= remove(SubjectIdentifierKey.ofIdentifyingMembers(asMap(identifier)), value);
+            }
+        }
+        return removed;
+    }
+
+    private boolean remove(final SubjectIdentifierKey key, final V value) {
+        final boolean[] removed = new boolean[1];
+        entries.computeIfPresent(key, (k, values) -> {
+            if (!values.contains(value)) {
+                return values;
+            }
+            removed[0] = true;
+            if (values.size() == 1) {
+                return null;
+            }
+            final Set<V> updated = new LinkedHashSet<>(values);
+            updated.remove(value);
+            return Collections.unmodifiableSet(updated);
+        });
+        return removed[0];
+    }
+
+    /**
+     * @param subj - Subject Identifier or JSON object, typically the subject of an event
+     * @return the values indexed under subj, or under any identifier of subj if it is an Aliases Subject
+     * Identifier. The set is empty if none match and must not be modified.
+     */
+    public Set<V> lookup(final Map<String, Object> subj) {
+        final List<?> identifiers = aliasIdentifiers(subj);
+        if (null == identifiers) {
+            final Set<V> values = entries.get(SubjectIdentifierKey.ofIdentifyingMembers(subj));
+            return null == values ? Collections.<V>emptySet() : values;
+        }
+        Set<V> found = Collections.emptySet();
+        Set<V> merged = null;
+        for (Object identifier : identifiers) {
+            final Set<V> values = identifier instanceof Map
+                    ? entries.get(SubjectIdentifierKey.ofIdentifyingMembers(asMap(identifier))) : null;
+            if (null == values) {
+                continue;
+            }
+            if (found.isEmpty()) {
+                found = values;
+            } else if (!found.containsAll(values)) {
+                if (null == merged) {
+                    merged = new LinkedHashSet<>(found);
+                    found = Collections.unmodifiableSet(merged);
+                }
+                merged.addAll(values);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param subj - Subject Identifier or JSON object
+     * @return true if any value is indexed under subj, or under any identifier of subj if it is an Aliases
+     * Subject Identifier.
+     */
+    public boolean contains(final Map<String, Object> subj) {
+        final List<?> identifiers = aliasIdentifiers(subj);
+        if (null == identifiers) {
+            return entries.containsKey(SubjectIdentifierKey.ofIdentifyingMembers(subj));
+        }
+        for (Object identifier : identifiers) {
+            if (identifier instanceof Map
+                    && entries.containsKey(SubjectIdentifierKey.ofIdentifyingMembers(asMap(identifier)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of distinct subjects indexed, counting each identifier of an Aliases Subject Identifier.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static List<?> aliasIdentifiers(final Map<String, Object> subj) {
+        if (!SubjectIdentifierFormats.ALIASES.equalsName(stringOrNull(subj.get(FORMAT)))) {
+            return null;
+        }
+        final Object identifiers = subj.get(IDENTIFIERS);
+        return identifiers instanceof List ? (List<?>) identifiers : Collections.emptyList();
+    }
+
+    private static String stringOrNull(final Object o) {
+        return o instanceof String ? (String) o : null;
+    }
+
+    // Aliases hold only Subject Identifiers; anything else in the identifiers array cannot match and is skipped.
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(final Object identifier) {
+        return (Map<String, Object>) identifier;
+    }
+}
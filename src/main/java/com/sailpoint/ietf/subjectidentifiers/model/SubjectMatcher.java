@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Precompiled pattern Subject Identifier, matching target subjects on the members present in the pattern only.
+ * A subscription to a complex subject with only a tenant thus matches events whose subject also carries a user,
+ * device or session.
+ *
+ * The members of OpenID SSE Complex Subject Identifiers (user, device, session, application, tenant, org_unit
+ * and group) are matched recursively. Aliases are expanded on both sides: an Aliases pattern matches if any of its
+ * identifiers does, and a pattern matches an Aliases target if it matches any of its identifiers. Other members,
+ * including format, must be equal.
+ *
+ * The pattern is walked once, when compiled, so that evaluating many matchers against an event only reads the
+ * members of the event. Values such as arrays are copied then, so a compiled matcher does not depend on the pattern
+ * and is safe to share between threads.
+ */
+public final class SubjectMatcher {
+
+    private static final String FORMAT = SubjectIdentifierMembers.FORMAT.toString();
+    private static final String IDENTIFIERS = SubjectIdentifierMembers.IDENTIFIERS.toString();
+
+    private abstract static class Node {
+        abstract boolean matches(Map<String, Object> target);
+    }
+
+    // Aliases pattern: any identifier may match.
+    private static final class AnyOf extends Node {
+        private final Node[] alternatives;
+
+        private AnyOf(final Node[] alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        boolean matches(final Map<String, Object> target) {
+            for (Node alternative : alternatives) {
+                if (alternative.matches(target)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Any other pattern: every member present must match.
+    private static final class Members extends Node {
+        private final String[] names;
+        private final Object[] values;
+        private final String[] childNames;
+        private final Node[] children;
+
+        private Members(final String[] names, final Object[] values, final String[] childNames, final Node[] children) {
+            this.names = names;
+            this.values = values;
+            this.childNames = childNames;
+            this.children = children;
+        }
+
+        @Override
+        boolean matches(final Map<String, Object> target) {
+            if (isAliases(target)) {
+                final Object identifiers = target.get(IDENTIFIERS);
+                if (identifiers instanceof List) {
+                    for (Object identifier : (List<?>) identifiers) {
+                        if (identifier instanceof Map && matchesMembers(asMap(identifier))) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+            return matchesMembers(target);
+        }
+
+        private boolean matchesMembers(final Map<String, Object> target) {
+            for (int i = 0; i < names.length; i++) {
+                final Object value = target.get(names[i]);
+                if (!Objects.equals(values[i], value) || (null == value && !target.containsKey(names[i]))) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < childNames.length; i++) {
+                final Object child = target.get(childNames[i]);
+                if (!(child instanceof Map) || !children[i].matches(asMap(child))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Node root;
+
+    private SubjectMatcher(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param pattern - Subject Identifier or JSON object holding the members to match
+     * @return matcher for pattern. Changing pattern or the values it holds later does not affect it.
+     */
+    public static SubjectMatcher compile(final Map<String, Object> pattern) {
+        return new SubjectMatcher(compileNode(pattern));
+    }
+
+    private static Node compileNode(final Map<String, Object> pattern) {
+        if (isAliases(pattern)) {
+            final List<Node> alternatives = new ArrayList<>();
+            final Object identifiers = pattern.get(IDENTIFIERS);
+            if (identifiers instanceof List) {
+                for (Object identifier : (List<?>) identifiers) {
+                    if (identifier instanceof Map) {
+                        alternatives.add(compileNode(asMap(identifier)));
+                    }
+                }
+            }
+            return new AnyOf(alternatives.toArray(new Node[0]));
+        }
+
+        final List<String> names = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+        final List<String> childNames = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : pattern.entrySet()) {
+            final Object value = entry.getValue();
+            if (value instanceof Map && isComplexMember(entry.getKey())) {
+                childNames.add(entry.getKey());
+                children.add(compileNode(asMap(value)));
+            } else {
+                names.add(entry.getKey());
+                values.add(snapshot(value));
+            }
+        }
+        return new Members(names.toArray(new String[0]), values.toArray(),
+                childNames.toArray(new String[0]), children.toArray(new Node[0]));
+    }
+
+    /**
+     * @param target - Subject Identifier or JSON object, typically the subject of an event
+     * @return true if every member of the pattern matches target
+     */
+    public boolean matches(final Map<String, Object> target) {
+        return null != target && root.matches(target);
+    }
+
+    // Copies the JSON arrays and objects inside value, which compare equal to the target values they were read from.
+    @SuppressWarnings("unchecked")
+    private static Object snapshot(final Object value) {
+        if (value instanceof Map) {
+            final Map<String, Object> members = (Map<String, Object>) value;
+            final Map<String, Object> copy = new LinkedHashMap<>(members.size() * 2);
+            for (Map.Entry<String, Object> entry : members.entrySet()) {
+                copy.put(entry.getKey(), snapshot(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            final List<?> items = (List<?>) value;
+            final List<Object> copy = new ArrayList<>(items.size());
+            for (Object item : items) {
+                copy.add(snapshot(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    private static boolean isComplexMember(final String name) {
+        for (SubjectIdentifierMembers member : SubjectIdentifierMembers.complexMembers()) {
+            if (member.equalsName(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAliases(final Map<String, Object> subj) {
+        final Object format = subj.get(FORMAT);
+        return format instanceof String && SubjectIdentifierFormats.ALIASES.equalsName((String) format);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(final Object o) {
+        return (Map<String, Object>) o;
+    }
+}
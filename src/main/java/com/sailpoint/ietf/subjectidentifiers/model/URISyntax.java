@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+/**
+ * Syntax checks for URIs per RFC 3986 and acct URIs per RFC 7565. They scan the String in place, without
+ * allocating, where java.net.URI would parse it into components and apply the older RFC 2396 rules.
+ */
+final class URISyntax {
+
+    private static final int ALPHA = 1;
+    private static final int DIGIT = 1 << 1;
+    private static final int HEXDIG = 1 << 2;
+    private static final int UNRESERVED = 1 << 3;
+    private static final int SUB_DELIM = 1 << 4;
+    private static final int SCHEME = 1 << 5;
+    private static final int COLON = 1 << 6;
+    private static final int AT = 1 << 7;
+    private static final int SLASH = 1 << 8;
+    private static final int QUESTION = 1 << 9;
+
+    // Character sets of the productions. Each allows percent-encodings as well.
+    private static final int REG_NAME = UNRESERVED | SUB_DELIM;
+    private static final int USERINFO = REG_NAME | COLON;
+    private static final int PCHAR = REG_NAME | COLON | AT;
+    private static final int PATH = PCHAR | SLASH;
+    private static final int QUERY = PATH | QUESTION;
+
+    private static final int[] CLASSES = new int[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] |= ALPHA | UNRESERVED | SCHEME;
+            CLASSES[Character.toUpperCase(c)] |= ALPHA | UNRESERVED | SCHEME;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] |= DIGIT | HEXDIG | UNRESERVED | SCHEME;
+        }
+        for (char c = 'a'; c <= 'f'; c++) {
+            CLASSES[c] |= HEXDIG;
+            CLASSES[Character.toUpperCase(c)] |= HEXDIG;
+        }
+        for (char c : "-._~".toCharArray()) {
+            CLASSES[c] |= UNRESERVED;
+        }
+        for (char c : "!$&'()*+,;=".toCharArray()) {
+            CLASSES[c] |= SUB_DELIM;
+        }
+        CLASSES['+'] |= SCHEME;
+        CLASSES['-'] |= SCHEME;
+        CLASSES['.'] |= SCHEME;
+        CLASSES[':'] |= COLON;
+        CLASSES['@'] |= AT;
+        CLASSES['/'] |= SLASH;
+        CLASSES['?'] |= QUESTION;
+    }
+
+    private URISyntax() {
+    }
+
+    /**
+     * @return the length of the scheme of s, which is the index of the colon following it, if s is a URI per
+     * RFC 3986, otherwise -1.
+     */
+    static int schemeLength(final String s) {
+        final int end = s.length();
+        final int colon = scanScheme(s, end);
+        if (colon < 0) {
+            return -1;
+        }
+        int i = colon + 1;
+        if (s.startsWith("//", i)) {
+            i = scanAuthority(s, i + 2, end);
+        }
+        return isPathQueryFragment(s, i) ? colon : -1;
+    }
+
+    /**
+     * @return true if s, from start on, is a path of segments [ "?" query ] [ "#" fragment ], as they follow the
+     * scheme or authority of a URI.
+     */
+    static boolean isPathQueryFragment(final String s, final int start) {
+        final int end = s.length();
+        int i = scan(s, start, end, PATH);
+        if (i >= 0 && i < end && s.charAt(i) == '?') {
+            i = scan(s, i + 1, end, QUERY);
+        }
+        if (i >= 0 && i < end && s.charAt(i) == '#') {
+            i = scan(s, i + 1, end, QUERY);
+        }
+        return i == end;
+    }
+
+    /**
+     * @return true if the first schemeLength characters of s are the scheme, ignoring case as RFC 3986 requires.
+     */
+    static boolean hasScheme(final String s, final int schemeLength, final String scheme) {
+        return schemeLength == scheme.length() && s.regionMatches(true, 0, scheme, 0, schemeLength);
+    }
+
+    /**
+     * RFC 7565
+     * acctURI   = "acct" ":" userpart "@" host
+     * userpart  = unreserved / sub-delims 0*( unreserved / pct-encoded / sub-delims )
+     *
+     * @return true if s is an acct URI.
+     */
+    static boolean isAcctURI(final String s) {
+        final int end = s.length();
+        if (!s.regionMatches(true, 0, "acct:", 0, 5) || end == 5 || !is(s.charAt(5), REG_NAME)) {
+            return false;
+        }
+        final int at = scan(s, 6, end, REG_NAME);
+        return at > 0 && at < end && s.charAt(at) == '@' && scanHost(s, at + 1, end) == end;
+    }
+
+    // Index of the colon ending the scheme at the start of s, or -1.
+    private static int scanScheme(final String s, final int end) {
+        if (end == 0 || !is(s.charAt(0), ALPHA)) {
+            return -1;
+        }
+        int i = 1;
+        while (i < end && is(s.charAt(i), SCHEME)) {
+            i++;
+        }
+        return i < end && s.charAt(i) == ':' ? i : -1;
+    }
+
+    // authority = [ userinfo "@" ] host [ ":" port ], ending before the path, query or fragment.
+    private static int scanAuthority(final String s, final int start, final int end) {
+        int authorityEnd = start;
+        int at = -1;
+        while (authorityEnd < end) {
+            final char c = s.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@' && at < 0) {
+                at = authorityEnd;
+            }
+            authorityEnd++;
+        }
+        int i = start;
+        if (at >= 0) {
+            if (scan(s, start, at, USERINFO) != at) {
+                return -1;
+            }
+            i = at + 1;
+        }
+        i = scanHost(s, i, authorityEnd);
+        if (i >= 0 && i < authorityEnd) {
+            if (s.charAt(i) != ':') {
+                return -1;
+            }
+            i++;
+            while (i < authorityEnd && is(s.charAt(i), DIGIT)) {
+                i++;
+            }
+        }
+        return i == authorityEnd ? i : -1;
+    }
+
+    // host = IP-literal / IPv4address / reg-name. IPv4 addresses are reg-names as far as syntax goes.
+    private static int scanHost(final String s, final int start, final int end) {
+        if (start < end && s.charAt(start) == '[') {
+            final int close = s.indexOf(']', start);
+            if (close < 0 || close >= end) {
+                return -1;
+            }
+            final boolean valid = close > start + 1 && (s.charAt(start + 1) == 'v' || s.charAt(start + 1) == 'V')
+                    ? isIPvFuture(s, start + 2, close) : isIPv6(s, start + 1, close);
+            return valid ? close + 1 : -1;
+        }
+        return scan(s, start, end, REG_NAME);
+    }
+
+    // IPvFuture = "v" 1*HEXDIG "." 1*( unreserved / sub-delims / ":" ), after the v.
+    private static boolean isIPvFuture(final String s, final int start, final int end) {
+        int i = start;
+        while (i < end && is(s.charAt(i), HEXDIG)) {
+            i++;
+        }
+        if (i == start || i + 1 >= end || s.charAt(i) != '.') {
+            return false;
+        }
+        for (i++; i < end; i++) {
+            if (!is(s.charAt(i), USERINFO)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Eight groups of up to four hex digits, the last two of which may be an IPv4 address, with one run of zero
+    // groups optionally compressed to "::".
+    private static boolean isIPv6(final String s, final int start, final int end) {
+        int groups = 0;
+        boolean compressed = false;
+        int i = start;
+        if (s.startsWith("::", i)) {
+            compressed = true;
+            i += 2;
+            if (i == end) {
+                return true;
+            }
+        }
+        while (true) {
+            int j = i;
+            while (j < end && j - i < 4 && is(s.charAt(j), HEXDIG)) {
+                j++;
+            }
+            if (j < end && s.charAt(j) == '.') {
+                if (!isIPv4(s, i, end)) {
+                    return false;
+                }
+                groups += 2;
+                break;
+            }
+            if (j == i) {
+                return false;
+            }
+            groups++;
+            if (j == end) {
+                break;
+            }
+            if (s.charAt(j) != ':') {
+                return false;
+            }
+            if (j + 1 < end && s.charAt(j + 1) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i = j + 2;
+                if (i == end) {
+                    break;
+                }
+            } else {
+                i = j + 1;
+            }
+        }
+        return compressed ? groups <= 7 : groups == 8;
+    }
+
+    // IPv4address = dec-octet "." dec-octet "." dec-octet "." dec-octet, without leading zeros.
+    private static boolean isIPv4(final String s, final int start, final int end) {
+        int i = start;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (i >= end || s.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+            final int digitsStart = i;
+            int value = 0;
+            while (i < end && i - digitsStart < 3 && is(s.charAt(i), DIGIT)) {
+                value = value * 10 + s.charAt(i) - '0';
+                i++;
+            }
+            final int digits = i - digitsStart;
+            if (digits == 0 || value > 255 || (digits > 1 && s.charAt(digitsStart) == '0')) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    // Index of the first character from start on that is neither in the classes nor part of a percent-encoding,
+    // or -1 at a malformed percent-encoding.
+    private static int scan(final String s, final int start, final int end, final int classes) {
+        if (start < 0) {
+            return -1;
+        }
+        int i = start;
+        while (i < end) {
+            final char c = s.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= end || !is(s.charAt(i + 1), HEXDIG) || !is(s.charAt(i + 2), HEXDIG)) {
+                    return -1;
+                }
+                i += 3;
+            } else if (is(c, classes)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean is(final char c, final int classes) {
+        return c < 128 && (CLASSES[c] & classes) != 0;
+    }
+}
@@ -7,4 +7,6 @@
 module com.sailpoint.ietf.subjectidentifiers.model {
     exports com.sailpoint.ietf.subjectidentifiers.model;
     requires transitive com.nimbusds.jose.jwt;
+    requires static jdk.jfr;
+    uses com.sailpoint.ietf.subjectidentifiers.model.SubjectIdentifierFormatProvider;
 }
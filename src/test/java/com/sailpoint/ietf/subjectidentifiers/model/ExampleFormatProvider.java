@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import java.text.ParseException;
+
+/*
+ * Vendor format discovered through META-INF/services by the registry tests.
+ */
+public class ExampleFormatProvider implements SubjectIdentifierFormatProvider {
+
+    static final String FORMAT = "x-example";
+
+    public static class ExampleSubjectIdentifier extends SubjectIdentifier {
+    }
+
+    // Listed before this provider in META-INF/services; its format cannot be registered.
+    public static class InvalidFormatProvider extends ExampleFormatProvider {
+        @Override
+        public String getFormat() {
+            return "invalid";
+        }
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public SubjectIdentifier newSubjectIdentifier() {
+        return new ExampleSubjectIdentifier();
+    }
+
+    @Override
+    public void validate(final SubjectIdentifier subj) throws ParseException, SIValidationException {
+        subj.validateMemberPresentNotNullNotEmptyString(SubjectIdentifierMembers.ID.toString());
+    }
+}
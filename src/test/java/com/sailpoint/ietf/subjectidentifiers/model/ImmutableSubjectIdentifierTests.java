@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+
+public class ImmutableSubjectIdentifierTests {
+
+    private static SubjectIdentifier convert(final String text) throws ParseException, SIValidationException {
+        return SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(text)));
+    }
+
+    @Test
+    public void ComplexRoundTripTest() throws ParseException, SIValidationException {
+        final SubjectIdentifier subj = convert("{\n" +
+                "  \"user\": {\n" +
+                "    \"format\": \"iss_sub\",\n" +
+                "    \"iss\": \"https://idp.example.com/123456789/\",\n" +
+                "    \"sub\": \"dMTlD|1600802906337.16|16008.16\"\n" +
+                "  },\n" +
+                "  \"device\": {\n" +
+                "    \"format\": \"did\",\n" +
+                "    \"url\": \"did:example:123456\"\n" +
+                "  },\n" +
+                "  \"tenant\": {\n" +
+                "    \"format\": \"opaque\",\n" +
+                "    \"id\": \"123456789\"\n" +
+                "  }\n" +
+                "}");
+
+        final ImmutableSubjectIdentifier value = ImmutableSubjectIdentifier.of(subj);
+        Assert.assertTrue(value instanceof ImmutableSubjectIdentifier.Complex);
+        final ImmutableSubjectIdentifier.Complex complex = (ImmutableSubjectIdentifier.Complex) value;
+        Assert.assertEquals(new ImmutableSubjectIdentifier.IssSub("https://idp.example.com/123456789/",
+                "dMTlD|1600802906337.16|16008.16"), complex.getUser());
+        Assert.assertEquals(new ImmutableSubjectIdentifier.DID("did:example:123456"), complex.getDevice());
+        Assert.assertNull(complex.getSession());
+
+        final SubjectIdentifier back = value.toSubjectIdentifier();
+        Assert.assertEquals(subj, back);
+        Assert.assertTrue(back.get("user") instanceof IssSubSubjectIdentifier);
+        back.validate();
+        Assert.assertEquals(value, ImmutableSubjectIdentifier.of(back));
+    }
+
+    @Test
+    public void AliasesRoundTripTest() throws ParseException, SIValidationException {
+        final SubjectIdentifier subj = convert("{\n" +
+                "  \"format\": \"aliases\",\n" +
+                "  \"identifiers\": [\n" +
+                "    {\n" +
+                "      \"format\": \"email\",\n" +
+                "      \"email\": \"user@example.com\"\n" +
+                "    },\n" +
+                "    {\n" +
+                "      \"format\": \"phone_number\",\n" +
+                "      \"phone_number\": \"+12065550100\"\n" +
+                "    }\n" +
+                "  ]\n" +
+                "}");
+
+        final ImmutableSubjectIdentifier value = ImmutableSubjectIdentifier.of(subj);
+        Assert.assertEquals(new ImmutableSubjectIdentifier.Aliases(
+                new ImmutableSubjectIdentifier.Email("user@example.com"),
+                new ImmutableSubjectIdentifier.PhoneNumber("+12065550100")), value);
+        Assert.assertEquals(subj, value.toSubjectIdentifier());
+        Assert.assertThrows(UnsupportedOperationException.class,
+                () -> ((ImmutableSubjectIdentifier.Aliases) value).getIdentifiers().clear());
+    }
+
+    @Test
+    public void EqualityTest() {
+        final ImmutableSubjectIdentifier a = new ImmutableSubjectIdentifier.Email("user@example.com");
+        final ImmutableSubjectIdentifier b = new ImmutableSubjectIdentifier.Email("user@example.com");
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertNotEquals(a, new ImmutableSubjectIdentifier.Opaque("user@example.com"));
+    }
+
+    // Formats without an immutable form
+    @Test
+    public void UnsupportedFormatNegativeTest() throws ParseException {
+        final SubjectIdentifier subj = new SubjectIdentifier.Builder()
+                .format(SubjectIdentifierFormats.JWT_ID)
+                .issuer("https://issuer.example.com/")
+                .jwtID("B70BA622-9515-4353-A866-823539EECBC8")
+                .build();
+        Assert.assertThrows(SIValidationException.class, () -> ImmutableSubjectIdentifier.of(subj));
+    }
+
+    // Subjects without a format are only complex ones if they hold nothing but complex members
+    @Test
+    public void NoFormatNegativeTest() {
+        final SubjectIdentifier token = new OAuthTokenSubjectIdentifier.Builder()
+                .tokenType(OAuthTokenType.ACCESS_TOKEN)
+                .token("AAA")
+                .build();
+        Assert.assertThrows(SIValidationException.class, () -> ImmutableSubjectIdentifier.of(token));
+        Assert.assertThrows(SIValidationException.class, () -> ImmutableSubjectIdentifier.of(new SubjectIdentifier()));
+
+        final SubjectIdentifier complex = new SubjectIdentifier.Builder()
+                .user(new EmailSubjectIdentifier.Builder().email("user@example.com").build())
+                .member("x-extra", "1")
+                .build();
+        Assert.assertThrows(SIValidationException.class, () -> ImmutableSubjectIdentifier.of(complex));
+        Assert.assertThrows(IllegalStateException.class, () -> new ImmutableSubjectIdentifier.Complex.Builder().build());
+    }
+
+    @Test
+    public void NestedAliasesNegativeTest() {
+        final ImmutableSubjectIdentifier.Aliases aliases =
+                new ImmutableSubjectIdentifier.Aliases(new ImmutableSubjectIdentifier.Email("user@example.com"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new ImmutableSubjectIdentifier.Aliases(aliases));
+    }
+}
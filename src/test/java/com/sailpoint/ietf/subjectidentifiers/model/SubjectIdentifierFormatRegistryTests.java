@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONObject;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+
+public class SubjectIdentifierFormatRegistryTests {
+
+    @Test
+    public void BuiltInFormatsTest() {
+        Assert.assertTrue(SubjectIdentifierFormatRegistry.newSubjectIdentifier("email") instanceof EmailSubjectIdentifier);
+        Assert.assertTrue(SubjectIdentifierFormatRegistry.newSubjectIdentifier("did") instanceof DIDSubjectIdentifier);
+        Assert.assertEquals(SubjectIdentifier.class, SubjectIdentifierFormatRegistry.newSubjectIdentifier("jwt_id").getClass());
+        Assert.assertEquals(SubjectIdentifier.class, SubjectIdentifierFormatRegistry.newSubjectIdentifier(null).getClass());
+        Assert.assertEquals(SubjectIdentifier.class, SubjectIdentifierFormatRegistry.newSubjectIdentifier("x-unknown").getClass());
+    }
+
+    @Test
+    public void ServiceLoaderProviderTest() throws ParseException, SIValidationException {
+        Assert.assertTrue(SubjectIdentifierFormatRegistry.isRegistered(ExampleFormatProvider.FORMAT));
+
+        final JSONObject figureJson = new JSONObject(JSONObjectUtils.parse("{\n" +
+                "  \"format\": \"x-example\",\n" +
+                "  \"id\": \"12345\"\n" +
+                "}"));
+        SubjectIdentifier subj = SubjectIdentifier.convertSubjects(figureJson);
+        Assert.assertTrue(subj instanceof ExampleFormatProvider.ExampleSubjectIdentifier);
+    }
+
+    // Providers that cannot be loaded or registered are skipped without breaking the registry
+    @Test
+    public void BrokenProviderNegativeTest() {
+        Assert.assertFalse(SubjectIdentifierFormatRegistry.isRegistered("invalid"));
+        Assert.assertTrue(SubjectIdentifierFormatRegistry.isRegistered(ExampleFormatProvider.FORMAT));
+        Assert.assertTrue(SubjectIdentifierFormatRegistry.newSubjectIdentifier("email") instanceof EmailSubjectIdentifier);
+    }
+
+    // Provider validator rejects a missing id
+    @Test
+    public void ServiceLoaderProviderNegativeTest() throws ParseException {
+        final JSONObject figureJson = new JSONObject(JSONObjectUtils.parse("{\n" +
+                "  \"format\": \"x-example\"\n" +
+                "}"));
+        Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(figureJson));
+    }
+
+    // Provider validator also runs for nested Subject Identifiers
+    @Test
+    public void NestedProviderNegativeTest() throws ParseException {
+        final JSONObject figureJson = new JSONObject(JSONObjectUtils.parse("{\n" +
+                "  \"user\": {\n" +
+                "    \"format\": \"x-example\"\n" +
+                "  }\n" +
+                "}"));
+        Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(figureJson));
+    }
+
+    @Test
+    public void RegisterTest() {
+        SubjectIdentifierFormatRegistry.register("x-register-test", OpaqueSubjectIdentifier::new);
+        try {
+            Assert.assertTrue(SubjectIdentifierFormatRegistry.newSubjectIdentifier("x-register-test") instanceof OpaqueSubjectIdentifier);
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-register-test");
+        }
+        Assert.assertFalse(SubjectIdentifierFormatRegistry.isRegistered("x-register-test"));
+    }
+
+    // A validation plan registered for an x- format reports every problem with the same engine as the built-in formats
+    @Test
+    public void RegisterValidationPlanTest() throws ParseException, SIValidationException {
+        SubjectIdentifierFormatRegistry.register("x-plan-test", SubjectIdentifier::new,
+                new SubjectIdentifierValidationPlan.Builder("x-plan-test")
+                        .format("x-plan-test")
+                        .uri("tenant_uri", "https")
+                        .oneOf("token_type", (Object[]) OAuthTokenType.values())
+                        .build());
+        try {
+            final SubjectIdentifier subj = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse("{\n" +
+                    "  \"format\": \"x-plan-test\",\n" +
+                    "  \"tenant_uri\": \"https://tenant.example.com/\",\n" +
+                    "  \"token_type\": \"refresh_token\"\n" +
+                    "}")));
+            Assert.assertTrue(subj.validationResult().isValid());
+
+            subj.put("tenant_uri", "http://tenant.example.com/");
+            subj.put("token_type", "id_token");
+            final SIValidationResult result = subj.validationResult();
+            Assert.assertEquals(2, result.getProblems().size());
+            Assert.assertEquals("/tenant_uri", result.getProblems().get(0).getPath());
+            Assert.assertEquals(SIValidationErrorCode.MEMBER_INVALID, result.getProblems().get(1).getCode());
+            Assert.assertEquals("/token_type", result.getProblems().get(1).getPath());
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-plan-test");
+        }
+    }
+
+    // A missing format or equalTo member is reported as missing rather than as a mismatch
+    @Test
+    public void ValidationPlanMissingEqualsTest() throws ParseException {
+        final SubjectIdentifierValidationPlan plan = new SubjectIdentifierValidationPlan.Builder("x-plan-test")
+                .format("x-plan-test")
+                .equalTo("kind", "test")
+                .build();
+        SIValidationResult result = new SIValidationResult();
+        plan.validate(new JSONObject(JSONObjectUtils.parse("{}")), result);
+        Assert.assertEquals(2, result.getProblems().size());
+        Assert.assertEquals(SIValidationErrorCode.FORMAT_MISSING, result.getProblems().get(0).getCode());
+        Assert.assertEquals("/format", result.getProblems().get(0).getPath());
+        Assert.assertEquals(SIValidationErrorCode.MEMBER_MISSING, result.getProblems().get(1).getCode());
+        Assert.assertEquals("/kind", result.getProblems().get(1).getPath());
+
+        result = new SIValidationResult();
+        plan.validate(new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"kind\": \"other\"}")), result);
+        Assert.assertEquals(2, result.getProblems().size());
+        Assert.assertEquals(SIValidationErrorCode.FORMAT_MISMATCH, result.getProblems().get(0).getCode());
+        Assert.assertEquals(SIValidationErrorCode.FORMAT_MISMATCH, result.getProblems().get(1).getCode());
+    }
+
+    // Formats defined by specification cannot be replaced
+    @Test
+    public void RegisterNegativeTest() {
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> SubjectIdentifierFormatRegistry.register("email", SubjectIdentifier::new));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONArray;
+import com.nimbusds.jose.shaded.json.JSONObject;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+
+public class SubjectIdentifierInternerTests {
+
+    private static final String FIGURE_TEXT = "{\n" +
+            "  \"user\": {\n" +
+            "    \"format\": \"iss_sub\",\n" +
+            "    \"iss\": \"https://idp.example.com/123456789/\",\n" +
+            "    \"sub\": \"dMTlD|1600802906337.16|16008.16\"\n" +
+            "  },\n" +
+            "  \"tenant\": {\n" +
+            "    \"format\": \"opaque\",\n" +
+            "    \"id\": \"123456789\"\n" +
+            "  }\n" +
+            "}";
+
+    private static JSONObject parse(final String text) throws ParseException {
+        return new JSONObject(JSONObjectUtils.parse(text));
+    }
+
+    @Test
+    public void SharedInstanceTest() throws ParseException, SIValidationException {
+        final SubjectIdentifierInterner interner = new SubjectIdentifierInterner(100);
+        final SubjectIdentifier first = SubjectIdentifier.convertSubjects(parse(FIGURE_TEXT), interner);
+        final SubjectIdentifier second = SubjectIdentifier.convertSubjects(parse(FIGURE_TEXT), interner);
+        Assert.assertSame(first, second);
+        Assert.assertTrue(first.get("user") instanceof IssSubSubjectIdentifier);
+        Assert.assertEquals(1, interner.size());
+
+        final EmailSubjectIdentifier email = new EmailSubjectIdentifier.Builder().email("user@example.com").build();
+        Assert.assertSame(email, interner.intern(email));
+        Assert.assertSame(email, interner.intern(new EmailSubjectIdentifier.Builder().email("user@example.com").build()));
+        Assert.assertEquals(2, interner.size());
+    }
+
+    // Shared instances hold no array of the input, so changing the input afterwards leaves them unchanged
+    @Test
+    public void InputOwnershipTest() throws ParseException, SIValidationException {
+        final SubjectIdentifierInterner interner = new SubjectIdentifierInterner(100);
+        final JSONObject input = parse("{\n" +
+                "  \"format\": \"aliases\",\n" +
+                "  \"identifiers\": [\n" +
+                "    { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "    { \"format\": \"opaque\", \"id\": \"123456789\" }\n" +
+                "  ]\n" +
+                "}");
+        final SubjectIdentifier shared = SubjectIdentifier.convertSubjects(input, interner);
+        final JSONArray identifiers = (JSONArray) shared.get("identifiers");
+        Assert.assertNotSame(input.get("identifiers"), identifiers);
+        Assert.assertFalse(((JSONArray) input.get("identifiers")).get(0) instanceof SubjectIdentifier);
+
+        ((JSONArray) input.get("identifiers")).clear();
+        Assert.assertEquals(2, identifiers.size());
+        Assert.assertTrue(identifiers.get(0) instanceof EmailSubjectIdentifier);
+        Assert.assertTrue(shared.validationResult().isValid());
+    }
+
+    @Test
+    public void EvictionTest() {
+        final SubjectIdentifierInterner interner = new SubjectIdentifierInterner(8);
+        for (int i = 0; i < 100; i++) {
+            interner.intern(new OpaqueSubjectIdentifier.Builder().id(Integer.toString(i)).build());
+        }
+        Assert.assertTrue(interner.size() <= 8);
+        interner.clear();
+        Assert.assertEquals(0, interner.size());
+    }
+
+    // Invalid subjects are not pooled
+    @Test
+    public void InvalidSubjectNegativeTest() throws ParseException {
+        final SubjectIdentifierInterner interner = new SubjectIdentifierInterner(100);
+        final JSONObject figureJson = parse("{\"format\": \"email\", \"email\": \"\"}");
+        Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(figureJson, interner));
+        Assert.assertEquals(0, interner.size());
+    }
+}
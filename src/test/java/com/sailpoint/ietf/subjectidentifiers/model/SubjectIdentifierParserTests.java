@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2021 SailPoint Technologies, Inc.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.sailpoint.ietf.subjectidentifiers.model;
+
+import com.nimbusds.jose.shaded.json.JSONArray;
+import com.nimbusds.jose.shaded.json.JSONObject;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Collections;
+
+public class SubjectIdentifierParserTests {
+
+    private static final String COMPLEX_TEXT = "{\n" +
+            "  \"user\": {\n" +
+            "    \"format\": \"iss_sub\",\n" +
+            "    \"iss\": \"https://idp.example.com/123456789/\",\n" +
+            "    \"sub\": \"dMTlD|1600802906337.16|16008.16\"\n" +
+            "  },\n" +
+            "  \"device\": {\n" +
+            "    \"format\": \"did\",\n" +
+            "    \"url\": \"did:example:123456\"\n" +
+            "  },\n" +
+            "  \"tenant\": {\n" +
+            "    \"id\": \"123456789\",\n" +
+            "    \"format\": \"opaque\"\n" +
+            "  }\n" +
+            "}";
+
+    private static final String ALIASES_TEXT = "{\n" +
+            "  \"identifiers\": [\n" +
+            "    {\n" +
+            "      \"format\": \"email\",\n" +
+            "      \"email\": \"user@example.com\"\n" +
+            "    },\n" +
+            "    {\n" +
+            "      \"format\": \"phone_number\",\n" +
+            "      \"phone_number\": \"+12065550100\"\n" +
+            "    }\n" +
+            "  ],\n" +
+            "  \"format\": \"aliases\"\n" +
+            "}";
+
+    private static SubjectIdentifier convert(final String text) throws ParseException, SIValidationException {
+        return SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(text)));
+    }
+
+    private static SubjectIdentifier parse(final String text) throws ParseException, SIValidationException {
+        return new SubjectIdentifierParser().parse(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void ComplexTest() throws ParseException, SIValidationException {
+        SubjectIdentifier subj = parse(COMPLEX_TEXT);
+        Assert.assertEquals(convert(COMPLEX_TEXT), subj);
+        Assert.assertTrue(subj.get("user") instanceof IssSubSubjectIdentifier);
+        Assert.assertTrue(subj.get("device") instanceof DIDSubjectIdentifier);
+        Assert.assertEquals(SubjectIdentifier.class, subj.get("tenant").getClass());
+    }
+
+    // Format member after the identifiers member
+    @Test
+    public void AliasesTest() throws ParseException, SIValidationException {
+        SubjectIdentifier subj = parse(ALIASES_TEXT);
+        Assert.assertTrue(subj instanceof AliasesSubjectIdentifier);
+        Assert.assertEquals(convert(ALIASES_TEXT), subj);
+        JSONArray identifiers = (JSONArray) subj.get(SubjectIdentifierMembers.IDENTIFIERS.toString());
+        Assert.assertTrue(identifiers.get(0) instanceof EmailSubjectIdentifier);
+        Assert.assertTrue(identifiers.get(1) instanceof PhoneNumberSubjectIdentifier);
+    }
+
+    // Objects inside formats without child subjects stay plain JSON objects
+    @Test
+    public void PlainObjectMemberTest() throws ParseException, SIValidationException {
+        final String text = "{\"ext\": {\"a\": {\"b\": [1, 2.5, true, null]}}, \"format\": \"email\", " +
+                "\"email\": \"user@example.com\"}";
+        SubjectIdentifier subj = parse(text);
+        Assert.assertEquals(convert(text), subj);
+        Assert.assertEquals(JSONObject.class, subj.get("ext").getClass());
+        Assert.assertEquals(JSONObject.class, ((JSONObject) subj.get("ext")).get("a").getClass());
+    }
+
+    // A member read ahead of the format is not validated as a Subject Identifier when the format has none
+    @Test
+    public void ReadAheadMemberTest() throws ParseException, SIValidationException {
+        final String text = "{\"ext\": {\"format\": \"email\"}, \"format\": \"phone_number\", " +
+                "\"phone_number\": \"+12065550100\"}";
+        SubjectIdentifier subj = parse(text);
+        Assert.assertEquals(convert(text), subj);
+        Assert.assertEquals(JSONObject.class, subj.get("ext").getClass());
+    }
+
+    @Test
+    public void StringsAndNumbersTest() throws ParseException, SIValidationException {
+        final String text = "{\"format\": \"opaque\", \"id\": \"caf\u00e9 \\u00e9\\n\\\"\uD83D\uDE00\", " +
+                "\"n\": -12, \"big\": 123456789012345678901, \"d\": 1.5e3}";
+        Assert.assertEquals(convert(text), parse(text));
+    }
+
+    @Test
+    public void ByteBufferAndStreamTest() throws IOException, ParseException, SIValidationException {
+        final byte[] bytes = COMPLEX_TEXT.getBytes(StandardCharsets.UTF_8);
+        final SubjectIdentifierParser parser = new SubjectIdentifierParser();
+        final SubjectIdentifier expected = convert(COMPLEX_TEXT);
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Assert.assertEquals(expected, parser.parse(direct));
+        Assert.assertEquals(0, direct.position());
+
+        Assert.assertEquals(expected, parser.parse(ByteBuffer.wrap(bytes)));
+        Assert.assertEquals(expected, parser.parse(new ByteArrayInputStream(bytes)));
+    }
+
+    // The writer's output parses back to an equal tree, whichever sink it is written to
+    @Test
+    public void WriterRoundTripTest() throws IOException, ParseException, SIValidationException {
+        final SubjectIdentifierWriter writer = new SubjectIdentifierWriter();
+        final SubjectIdentifierParser parser = new SubjectIdentifierParser();
+        final String strings = "{\"format\": \"opaque\", \"id\": \"caf\u00e9 \\u00e9\\n\\\"\uD83D\uDE00\\u0001\", " +
+                "\"n\": -12, \"big\": 123456789012345678901, \"d\": 1.5e3, \"t\": true, \"x\": null}";
+        for (String text : new String[]{COMPLEX_TEXT, ALIASES_TEXT, strings}) {
+            final SubjectIdentifier expected = convert(text);
+            Assert.assertEquals(expected, parser.parse(writer.toBytes(expected)));
+            Assert.assertEquals(expected, convert(writer.toJSONString(expected)));
+
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            writer.write(expected, stream);
+            Assert.assertEquals(expected, parser.parse(stream.toByteArray()));
+
+            final StringBuilder sb = new StringBuilder();
+            writer.write(expected, sb);
+            Assert.assertEquals(expected, convert(sb.toString()));
+
+            final ByteBuffer buffer = ByteBuffer.allocate(1024);
+            writer.write(expected, buffer);
+            buffer.flip();
+            Assert.assertEquals(expected, parser.parse(buffer));
+            Assert.assertEquals(expected, parser.parse(writer.toByteBuffer(expected)));
+        }
+    }
+
+    // NDJSON written to a file reads back through mapped windows, reporting improper lines without stopping
+    @Test
+    public void NdjsonRoundTripTest() throws IOException, ParseException, SIValidationException {
+        final Path path = Files.createTempFile("subjects", ".ndjson");
+        try {
+            final SubjectIdentifier complex = convert(COMPLEX_TEXT);
+            final SubjectIdentifier aliases = convert(ALIASES_TEXT);
+            final SubjectIdentifier improper = convert("{\"format\": \"email\", \"email\": \"user@example.com\"}");
+            improper.put(SubjectIdentifierMembers.EMAIL, "");
+            try (SubjectIdentifierNdjsonWriter writer = SubjectIdentifierNdjsonWriter.open(path)) {
+                writer.write(complex);
+                writer.write(improper);
+                writer.write(aliases);
+                Assert.assertEquals(3, writer.getLineCount());
+            }
+
+            try (SubjectIdentifierNdjsonReader reader = SubjectIdentifierNdjsonReader.open(path)) {
+                final SubjectIdentifierNdjsonReader.Line first = reader.read();
+                Assert.assertTrue(first.isSuccess());
+                Assert.assertEquals(complex, first.getSubject());
+                final SubjectIdentifierNdjsonReader.Line second = reader.read();
+                Assert.assertFalse(second.isSuccess());
+                Assert.assertEquals(2, second.getNumber());
+                Assert.assertTrue(second.getError() instanceof SIValidationException);
+                final SubjectIdentifierNdjsonReader.Line third = reader.read();
+                Assert.assertEquals(aliases, third.getSubject());
+                Assert.assertTrue(third.getSubject() instanceof AliasesSubjectIdentifier);
+                Assert.assertNull(reader.read());
+                Assert.assertEquals(3, reader.getLineCount());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    // Lines longer than the maximum are skipped, blank lines are ignored and the last line needs no terminator
+    @Test
+    public void NdjsonNegativeTest() throws IOException {
+        final String text = "{\"format\": \"opaque\", \"id\": \"1\"}\r\n" +
+                "\n" +
+                "{\"format\": \"opaque\", \"id\": \"" + String.join("", Collections.nCopies(64, "x")) + "\"}\n" +
+                "{\"format\": \"opaque\",\n" +
+                "{\"format\": \"opaque\", \"id\": \"2\"}";
+        try (SubjectIdentifierNdjsonReader reader = new SubjectIdentifierNdjsonReader(
+                Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))), 48)) {
+            Assert.assertEquals("1", reader.read().getSubject().get("id"));
+            final SubjectIdentifierNdjsonReader.Line tooLong = reader.read();
+            Assert.assertEquals(3, tooLong.getNumber());
+            Assert.assertTrue(tooLong.getError() instanceof ParseException);
+            final SubjectIdentifierNdjsonReader.Line truncated = reader.read();
+            Assert.assertEquals(4, truncated.getNumber());
+            Assert.assertTrue(truncated.getError() instanceof ParseException);
+            final SubjectIdentifierNdjsonReader.Line last = reader.read();
+            Assert.assertEquals(5, last.getNumber());
+            Assert.assertEquals("2", last.getSubject().get("id"));
+            Assert.assertNull(reader.read());
+        }
+    }
+
+    // Mapped files enforce the maximum line length too, and a broken factory fails its own line only
+    @Test
+    public void NdjsonMappedNegativeTest() throws IOException {
+        final String text = "{\"format\": \"opaque\", \"id\": \"1\"}\n" +
+                "{\"format\": \"opaque\", \"id\": \"" + String.join("", Collections.nCopies(64, "x")) + "\"}\n" +
+                "{\"format\": \"x-broken\"}\n" +
+                "{\"format\": \"opaque\", \"id\": \"2\"}\n";
+        final Path path = Files.createTempFile("subjects", ".ndjson");
+        SubjectIdentifierFormatRegistry.register("x-broken", () -> {
+            throw new IllegalStateException("broken factory");
+        });
+        try {
+            Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+            try (SubjectIdentifierNdjsonReader reader = SubjectIdentifierNdjsonReader.open(path, 48)) {
+                Assert.assertEquals("1", reader.read().getSubject().get("id"));
+                final SubjectIdentifierNdjsonReader.Line tooLong = reader.read();
+                Assert.assertEquals(2, tooLong.getNumber());
+                Assert.assertTrue(tooLong.getError() instanceof ParseException);
+                final SubjectIdentifierNdjsonReader.Line broken = reader.read();
+                Assert.assertEquals(3, broken.getNumber());
+                Assert.assertTrue(broken.getError() instanceof IllegalStateException);
+                Assert.assertEquals("2", reader.read().getSubject().get("id"));
+                Assert.assertNull(reader.read());
+            }
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-broken");
+            Files.delete(path);
+        }
+    }
+
+    // A ByteBuffer too small for the output is left unchanged
+    @Test
+    public void WriterNegativeTest() throws ParseException, SIValidationException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8);
+        Assert.assertThrows(BufferOverflowException.class,
+                () -> new SubjectIdentifierWriter().write(convert(COMPLEX_TEXT), buffer));
+        Assert.assertEquals(0, buffer.position());
+    }
+
+    // CBOR round trips to an equal tree of the same classes, and is smaller than JSON text
+    @Test
+    public void CborRoundTripTest() throws IOException, ParseException, SIValidationException {
+        final SubjectIdentifierCbor cbor = new SubjectIdentifierCbor();
+        final String numbers = "{\"format\": \"x-numbers\", \"n\": -12, \"max\": 9223372036854775807, " +
+                "\"big\": 123456789012345678901, \"neg\": -123456789012345678901, \"d\": 1.5e3, " +
+                "\"t\": true, \"x\": null, \"s\": \"caf\u00e9\", \"a\": [1, {\"b\": \"email\"}]}";
+        for (String text : new String[]{COMPLEX_TEXT, ALIASES_TEXT, numbers}) {
+            final SubjectIdentifier expected = convert(text);
+            final byte[] bytes = cbor.encode(expected);
+            Assert.assertTrue(bytes.length < new SubjectIdentifierWriter().toBytes(expected).length);
+            final SubjectIdentifier decoded = cbor.decode(bytes);
+            Assert.assertEquals(expected, decoded);
+            Assert.assertEquals(expected.getClass(), decoded.getClass());
+
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            cbor.encode(expected, stream);
+            Assert.assertArrayEquals(bytes, stream.toByteArray());
+
+            final ByteBuffer buffer = ByteBuffer.allocate(1024);
+            cbor.encode(expected, buffer);
+            buffer.flip();
+            Assert.assertEquals(expected, cbor.decode(buffer));
+        }
+        final SubjectIdentifier aliases = cbor.decode(cbor.encode(convert(ALIASES_TEXT)));
+        final JSONArray identifiers = (JSONArray) aliases.get(SubjectIdentifierMembers.IDENTIFIERS.toString());
+        Assert.assertTrue(identifiers.get(0) instanceof EmailSubjectIdentifier);
+        final SubjectIdentifier complex = cbor.decode(cbor.encode(convert(COMPLEX_TEXT)));
+        Assert.assertTrue(complex.get(SubjectIdentifierMembers.DEVICE.toString()) instanceof DIDSubjectIdentifier);
+
+        // Known member names take one byte and known format names four: map(2) 0 tag(1647) 1 3 text(16)
+        final byte[] email = cbor.encode(new EmailSubjectIdentifier.Builder().email("user@example.com").build());
+        Assert.assertEquals(24, email.length);
+        Assert.assertEquals((byte) 0xA2, email[0]);
+        Assert.assertEquals(0, email[1]);
+    }
+
+    // Malformed, truncated and unsupported CBOR is rejected, as is an invalid Subject Identifier
+    @Test
+    public void CborNegativeTest() throws ParseException, SIValidationException {
+        final SubjectIdentifierCbor cbor = new SubjectIdentifierCbor();
+        final byte[] bytes = cbor.encode(convert(COMPLEX_TEXT));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(bytes, 0, bytes.length - 1));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[0]));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[]{(byte) 0x80}));
+        // Indefinite length map, byte string value, unknown member code, unknown tag, trailing data
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[]{(byte) 0xBF, (byte) 0xFF}));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[]{(byte) 0xA1, 0x0F, 0x40}));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[]{(byte) 0xA1, 0x17, (byte) 0xF6}));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[]{(byte) 0xA1, 0x0F, (byte) 0xC1, 0x00}));
+        Assert.assertThrows(ParseException.class, () -> cbor.decode(new byte[]{(byte) 0xA0, (byte) 0xA0}));
+
+        final SubjectIdentifier invalid = new SubjectIdentifier();
+        invalid.put(SubjectIdentifierMembers.FORMAT.toString(), SubjectIdentifierFormats.EMAIL.toString());
+        invalid.put(SubjectIdentifierMembers.EMAIL.toString(), "");
+        Assert.assertThrows(SIValidationException.class, () -> cbor.decode(cbor.encode(invalid)));
+    }
+
+    @Test
+    public void SyntaxNegativeTest() {
+        Assert.assertThrows(ParseException.class, () -> parse("{\"format\": \"email\""));
+        Assert.assertThrows(ParseException.class, () -> parse("{\"format\": \"email\",}"));
+        Assert.assertThrows(ParseException.class, () -> parse("[]"));
+        Assert.assertThrows(ParseException.class, () -> parse("{\"n\": 01}"));
+        Assert.assertThrows(ParseException.class, () -> parse("{} {}"));
+    }
+
+    @Test
+    public void ValidationNegativeTest() {
+        Assert.assertThrows(SIValidationException.class, () -> parse("{\"format\": \"email\", \"email\": \"\"}"));
+        Assert.assertThrows(SIValidationException.class,
+                () -> parse("{\"format\": \"aliases\", \"identifiers\": [{\"format\": \"aliases\", " +
+                        "\"identifiers\": [{\"format\": \"email\", \"email\": \"user@example.com\"}]}]}"));
+    }
+}
@@ -12,8 +12,32 @@ import com.nimbusds.jose.util.JSONObjectUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 import javax.swing.plaf.OptionPaneUI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class SubjectIdentifierTests {
@@ -69,6 +93,48 @@ public class SubjectIdentifierTests {
         Assert.assertThrows(SIValidationException.class, subj::validate);
     }
 
+    // Method and method-specific-id, taken from the url and recomputed once it changes
+    @Test
+    public void DIDTest6() throws ParseException, SIValidationException {
+        DIDSubjectIdentifier subj = new DIDSubjectIdentifier.Builder()
+                .url("did:example:123456")
+                .build();
+        Assert.assertEquals("example", subj.getMethod());
+        Assert.assertEquals("123456", subj.getMethodSpecificId());
+        Assert.assertSame(subj.getMethod(), subj.getMethod());
+
+        for (String url : new String[]{"did:web:example.com%3A8443:user:alice/path/a?service=files&x=1#key-1",
+                "did:web:example.com%3A8443:user:alice", "did:web:example.com%3A8443:user:alice#key-1"}) {
+            subj.put(SubjectIdentifierMembers.URL.toString(), url);
+            subj.validate();
+            Assert.assertEquals("web", subj.getMethod());
+            Assert.assertEquals("example.com%3A8443:user:alice", subj.getMethodSpecificId());
+        }
+        subj.put(SubjectIdentifierMembers.URL.toString(), "did:ion::EiD_x");
+        subj.validate();
+        Assert.assertEquals(":EiD_x", subj.getMethodSpecificId());
+
+        // Relative DID URLs are accepted, without components
+        subj.put(SubjectIdentifierMembers.URL.toString(), "/path#key-1");
+        subj.validate();
+        Assert.assertNull(subj.getMethod());
+        Assert.assertNull(subj.getMethodSpecificId());
+    }
+
+    // did: URLs that are not DID URLs
+    @Test
+    public void DIDTest7() {
+        for (String url : new String[]{"did:", "did:example", "did:example:", "did::123456", "did:Example:123456",
+                "did:example:123456:", "did:example:12%3", "did:example:123 456", "did:example:123@456",
+                "did:example:123456/pa th", "did:example:123456#a#b"}) {
+            DIDSubjectIdentifier subj = new DIDSubjectIdentifier.Builder()
+                    .url(url)
+                    .build();
+            Assert.assertThrows(url, SIValidationException.class, subj::validate);
+            Assert.assertNull(url, subj.getMethod());
+        }
+    }
+
 
 
     @Test
@@ -147,6 +213,51 @@ public class SubjectIdentifierTests {
         Assert.assertThrows(SIValidationException.class, subj::validate);
     }
 
+    // email member not an addr-spec
+    @Test
+    public void EmailNegativeTest4() {
+        final StringBuilder crafted = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            crafted.append("a.");
+        }
+        for (String email : new String[]{"user", "@example.com", "user@", "user@@example.com", "us er@example.com",
+                "user.@example.com", ".user@example.com", "us..er@example.com", "user@example..com", "user@example.com.",
+                "\"unterminated@example.com", "user@[1.2.3.4", "caf\u00e9@example.com", crafted + "@example.com!"}) {
+            EmailSubjectIdentifier subj = new EmailSubjectIdentifier.Builder()
+                    .email(email)
+                    .build();
+            Assert.assertThrows(email, SIValidationException.class, subj::validate);
+        }
+    }
+
+    // addr-spec under the strict and lenient policies, with the boundary between local-part and domain
+    @Test
+    public void EmailAddrSpecTest() throws ParseException, SIValidationException {
+        final EmailSubjectIdentifier.AddrSpecPolicy strict = EmailSubjectIdentifier.AddrSpecPolicy.STRICT;
+        final EmailSubjectIdentifier.AddrSpecPolicy lenient = EmailSubjectIdentifier.AddrSpecPolicy.LENIENT;
+        for (String email : new String[]{"user@example.com", "user+qualifier@example.com", "o'brien@EXAMPLE.COM",
+                "!#$%&'*+-/=?^_`{|}~@example", "\"john doe\"@example.com", "\"a\\\"b@c\"@example.com",
+                "user@[192.0.2.1]", "user@[IPv6:2001:db8::1]"}) {
+            Assert.assertEquals(email, email.lastIndexOf('@'), EmailSubjectIdentifier.indexOfDomainSeparator(email, strict));
+            Assert.assertEquals(email, email.lastIndexOf('@'), EmailSubjectIdentifier.indexOfDomainSeparator(email, lenient));
+        }
+        final String longLocalPart = String.join("", Collections.nCopies(65, "a")) + "@example.com";
+        for (String email : new String[]{"caf\u00e9@example.com", "user@b\u00fccher.example", "john..doe@example.com",
+                "john.@example.com", longLocalPart}) {
+            Assert.assertEquals(email, -1, EmailSubjectIdentifier.indexOfDomainSeparator(email, strict));
+            Assert.assertEquals(email, email.lastIndexOf('@'), EmailSubjectIdentifier.indexOfDomainSeparator(email, lenient));
+        }
+
+        final EmailSubjectIdentifier subj = new EmailSubjectIdentifier.Builder().email("caf\u00e9@example.com").build();
+        Assert.assertThrows(SIValidationException.class, subj::validate);
+        EmailSubjectIdentifier.setValidationPolicy(lenient);
+        try {
+            subj.validate();
+        } finally {
+            EmailSubjectIdentifier.setValidationPolicy(strict);
+        }
+    }
+
 
     @Test
     public void PhoneNumberTest() throws ParseException {
@@ -191,6 +302,41 @@ public class SubjectIdentifierTests {
         Assert.assertThrows(SIValidationException.class, subj::validate);
     }
 
+    // phone_number member not in the E.164 format
+    @Test
+    public void PhoneNumberNegativeTest4() {
+        for (String phoneNumber : new String[]{"12065550100", "+", "+1", "+02065550100", "+1 206 555 0100",
+                "+1206555010012345", "+1206555O100", "tel:+12065550100"}) {
+            PhoneNumberSubjectIdentifier subj = new PhoneNumberSubjectIdentifier.Builder()
+                    .phoneNumber(phoneNumber)
+                    .build();
+            Assert.assertThrows(phoneNumber, SIValidationException.class, subj::validate);
+        }
+    }
+
+    // Separators are removed so that numbers written differently compare equal
+    @Test
+    public void PhoneNumberNormalizeTest() throws ParseException, SIValidationException {
+        for (String phoneNumber : new String[]{"+12065550100", "+1 (206) 555-0100", "+1.206.555.0100",
+                "+1/206/555/0100", "+1\u00a0206\u00a0555\u00a00100", " +1 206 555 0100 "}) {
+            Assert.assertEquals(phoneNumber, "+12065550100", PhoneNumberSubjectIdentifier.normalize(phoneNumber));
+        }
+        for (String phoneNumber : new String[]{"206-555-0100", "+1 206 555 0100 x12", "+1 206 +555 0100",
+                "+0 206 555 0100", "+1 206 555 0100 1234 5", ""}) {
+            Assert.assertNull(phoneNumber, PhoneNumberSubjectIdentifier.normalize(phoneNumber));
+        }
+        Assert.assertNull(PhoneNumberSubjectIdentifier.normalize(null));
+
+        PhoneNumberSubjectIdentifier subj = new PhoneNumberSubjectIdentifier.Builder()
+                .normalizedPhoneNumber("+1 (206) 555-0100")
+                .build();
+        subj.validate();
+        Assert.assertEquals(new PhoneNumberSubjectIdentifier.Builder().phoneNumber("+12065550100").build(), subj);
+        Assert.assertThrows(SIValidationException.class, new PhoneNumberSubjectIdentifier.Builder()
+                .normalizedPhoneNumber("(206) 555-0100")
+                .build()::validate);
+    }
+
     @Test
     public void AliasesTest() throws ParseException {
         EmailSubjectIdentifier email1 = new EmailSubjectIdentifier.Builder()
@@ -286,6 +432,766 @@ public class SubjectIdentifierTests {
         Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(figureJson));
     }
 
+    // Each nested Subject Identifier is validated exactly once during conversion
+    @Test
+    public void ConvertSubjectsValidatesOnceTest() throws ParseException, SIValidationException {
+        final AtomicInteger validations = new AtomicInteger();
+        SubjectIdentifierFormatRegistry.register("x-counted", SubjectIdentifier::new, subj -> validations.incrementAndGet());
+        try {
+            final int depth = 6;
+            String text = "{\"format\": \"x-counted\"}";
+            for (int level = 1; level < depth; level++) {
+                text = "{\"format\": \"x-counted\", \"tenant\": " + text + "}";
+            }
+            final JSONObject figureJson = new JSONObject(JSONObjectUtils.parse(text));
+            SubjectIdentifier.convertSubjects(figureJson);
+            Assert.assertEquals(depth, validations.get());
+
+            validations.set(0);
+            new SubjectIdentifierParser().parse(text.getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(depth, validations.get());
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-counted");
+        }
+    }
+
+    // Subclasses overriding validate() still have it run on conversion, once per Subject Identifier
+    @Test
+    public void ConvertSubjectsValidateOverrideTest() throws ParseException, SIValidationException {
+        final AtomicInteger validations = new AtomicInteger();
+        SubjectIdentifierFormatRegistry.register("x-overridden", () -> new SubjectIdentifier() {
+            @Override
+            public void validate() throws ParseException, SIValidationException {
+                validations.incrementAndGet();
+                if (!containsKey("id")) {
+                    throw new SIValidationException("SubjectIdentifier member id must be present.");
+                }
+                super.validate();
+            }
+        });
+        try {
+            final String text = "{\"format\": \"x-overridden\", \"id\": \"1\", "
+                    + "\"tenant\": {\"format\": \"x-overridden\", \"id\": \"2\"}}";
+            SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(text)));
+            Assert.assertEquals(2, validations.get());
+
+            validations.set(0);
+            new SubjectIdentifierParser().parse(text.getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(2, validations.get());
+
+            final JSONObject figureJson = new JSONObject(JSONObjectUtils.parse(
+                    "{\"format\": \"x-overridden\", \"tenant\": {\"format\": \"x-overridden\"}}"));
+            Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(figureJson));
+
+            // Validating the parent runs the override of its children, and only the outer operations are reported
+            final List<SubjectIdentifierMetricsListener.Operation> operations = new ArrayList<>();
+            SubjectIdentifierMetrics.setListener((operation, format, depth, memberCount, nanos, error) ->
+                    operations.add(operation));
+            final SubjectIdentifier complex;
+            try {
+                complex = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(
+                        "{\"user\": {\"format\": \"x-overridden\", \"id\": \"1\"}}")));
+                final SubjectIdentifier user = (SubjectIdentifier) complex.get(SubjectIdentifierMembers.USER.toString());
+                user.remove("id");
+                validations.set(0);
+                Assert.assertThrows(SIValidationException.class, complex::validate);
+                Assert.assertEquals(1, validations.get());
+            } finally {
+                SubjectIdentifierMetrics.setListener(null);
+            }
+            Assert.assertEquals(Arrays.asList(SubjectIdentifierMetricsListener.Operation.CONVERT,
+                    SubjectIdentifierMetricsListener.Operation.VALIDATE), operations);
+            final SIValidationResult result = complex.validationResult();
+            Assert.assertEquals(1, result.getProblems().size());
+            Assert.assertEquals("/user", result.getProblems().get(0).getPath());
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-overridden");
+        }
+    }
+
+    // Errors in deeply nested Subject Identifiers are still reported
+    @Test
+    public void ConvertNestedSubjectsNegativeTest() throws ParseException {
+        final String figure_text = "{\n" +
+                "  \"tenant\": {\n" +
+                "    \"user\": {\n" +
+                "      \"format\": \"email\",\n" +
+                "      \"email\": \"\"\n" +
+                "    }\n" +
+                "  }\n" +
+                "}";
+
+        final JSONObject figureJson = new JSONObject(JSONObjectUtils.parse(figure_text));
+        Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(figureJson));
+    }
+
+    // Keys of equal content are equal regardless of member order and of the map implementation
+    @Test
+    public void SubjectIdentifierKeyTest() throws ParseException, SIValidationException {
+        final String figure_text = "{\n" +
+                "  \"user\": {\n" +
+                "    \"format\": \"iss_sub\",\n" +
+                "    \"iss\": \"https://issuer.example.com/\",\n" +
+                "    \"sub\": \"145234573\"\n" +
+                "  },\n" +
+                "  \"tenant\": {\n" +
+                "    \"format\": \"aliases\",\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "      { \"format\": \"opaque\", \"id\": \"11112222333344445555\" }\n" +
+                "    ]\n" +
+                "  }\n" +
+                "}";
+        final String reordered_text = "{\n" +
+                "  \"tenant\": {\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"email\": \"user@example.com\", \"format\": \"email\" },\n" +
+                "      { \"id\": \"11112222333344445555\", \"format\": \"opaque\" }\n" +
+                "    ],\n" +
+                "    \"format\": \"aliases\"\n" +
+                "  },\n" +
+                "  \"user\": {\n" +
+                "    \"sub\": \"145234573\",\n" +
+                "    \"iss\": \"https://issuer.example.com/\",\n" +
+                "    \"format\": \"iss_sub\"\n" +
+                "  }\n" +
+                "}";
+
+        final SubjectIdentifier subj = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(figure_text)));
+        final SubjectIdentifierKey key = SubjectIdentifierKey.of(subj);
+        final SubjectIdentifierKey other = SubjectIdentifierKey.of(JSONObjectUtils.parse(reordered_text));
+        Assert.assertNull(key.getFormat());
+        Assert.assertEquals(key, other);
+        Assert.assertEquals(key.hashCode(), other.hashCode());
+
+        final Map<SubjectIdentifierKey, String> subscriptions = new HashMap<>();
+        subscriptions.put(key, "subscription");
+        Assert.assertEquals("subscription", subscriptions.get(other));
+
+        // The key is a snapshot: later changes to the Subject Identifier do not affect it.
+        ((SubjectIdentifier) subj.get("user")).put(SubjectIdentifierMembers.SUBJECT, "999");
+        Assert.assertEquals(key, other);
+        Assert.assertNotEquals(key, SubjectIdentifierKey.of(subj));
+    }
+
+    // Keys differing in format or in any member are not equal
+    @Test
+    public void SubjectIdentifierKeyNegativeTest() throws ParseException {
+        final SubjectIdentifier email = new SubjectIdentifier.Builder()
+                .format(SubjectIdentifierFormats.EMAIL)
+                .email("user@example.com")
+                .build();
+        final SubjectIdentifier xEmail = new SubjectIdentifier.Builder()
+                .member("format", "x-email")
+                .email("user@example.com")
+                .build();
+        final SubjectIdentifier otherEmail = new SubjectIdentifier.Builder()
+                .format(SubjectIdentifierFormats.EMAIL)
+                .email("other@example.com")
+                .build();
+        final SubjectIdentifier extraMember = new SubjectIdentifier.Builder()
+                .format(SubjectIdentifierFormats.EMAIL)
+                .email("user@example.com")
+                .id("1")
+                .build();
+
+        final SubjectIdentifierKey key = SubjectIdentifierKey.of(email);
+        Assert.assertEquals("email", key.getFormat());
+        Assert.assertNotEquals(key, SubjectIdentifierKey.of(xEmail));
+        Assert.assertNotEquals(key, SubjectIdentifierKey.of(otherEmail));
+        Assert.assertNotEquals(key, SubjectIdentifierKey.of(extraMember));
+    }
+
+    // Subjects match on their identifying members, and aliases match through any of their identifiers
+    @Test
+    public void SubjectIndexTest() throws ParseException {
+        final String subscribed_text = "{\n" +
+                "  \"format\": \"aliases\",\n" +
+                "  \"identifiers\": [\n" +
+                "    { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "    { \"format\": \"iss_sub\", \"iss\": \"https://issuer.example.com/\", \"sub\": \"145234573\" }\n" +
+                "  ]\n" +
+                "}";
+        final String event_text = "{\n" +
+                "  \"format\": \"aliases\",\n" +
+                "  \"identifiers\": [\n" +
+                "    { \"format\": \"phone_number\", \"phone_number\": \"+12065550100\" },\n" +
+                "    { \"format\": \"email\", \"email\": \"user@example.com\" }\n" +
+                "  ]\n" +
+                "}";
+
+        final SubjectIndex<String> index = new SubjectIndex<>();
+        index.add(JSONObjectUtils.parse(subscribed_text), "stream-1");
+        index.add(new EmailSubjectIdentifier.Builder().email("user@example.com").build(), "stream-2");
+        Assert.assertEquals(2, index.size());
+
+        final SubjectIdentifier issSub = new IssSubSubjectIdentifier.Builder()
+                .issuer("https://issuer.example.com/")
+                .subject("145234573")
+                .build();
+        // Members other than the identifying ones do not affect matching.
+        issSub.put("x-note", "ignored");
+        Assert.assertEquals(Collections.singleton("stream-1"), index.lookup(issSub));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("stream-1", "stream-2")),
+                index.lookup(JSONObjectUtils.parse(event_text)));
+        Assert.assertTrue(index.contains(JSONObjectUtils.parse(event_text)));
+
+        Assert.assertTrue(index.remove(JSONObjectUtils.parse(subscribed_text), "stream-1"));
+        Assert.assertFalse(index.contains(issSub));
+        Assert.assertEquals(Collections.singleton("stream-2"), index.lookup(JSONObjectUtils.parse(event_text)));
+    }
+
+    // Complex subjects match on the identifying members of their children, whatever other members the children carry
+    @Test
+    public void SubjectIndexComplexTest() throws ParseException {
+        final SubjectIndex<String> index = new SubjectIndex<>();
+        index.add(JSONObjectUtils.parse("{\n" +
+                "  \"user\": { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "  \"tenant\": { \"format\": \"opaque\", \"id\": \"tenant-1\" }\n" +
+                "}"), "stream-1");
+
+        Assert.assertEquals(Collections.singleton("stream-1"), index.lookup(JSONObjectUtils.parse("{\n" +
+                "  \"user\": { \"format\": \"email\", \"email\": \"user@example.com\", \"x-note\": \"ignored\" },\n" +
+                "  \"tenant\": { \"format\": \"opaque\", \"id\": \"tenant-1\" },\n" +
+                "  \"x-note\": \"ignored\"\n" +
+                "}")));
+        Assert.assertTrue(index.lookup(JSONObjectUtils.parse("{\n" +
+                "  \"user\": { \"format\": \"email\", \"email\": \"other@example.com\" },\n" +
+                "  \"tenant\": { \"format\": \"opaque\", \"id\": \"tenant-1\" }\n" +
+                "}")).isEmpty());
+        Assert.assertTrue(index.lookup(JSONObjectUtils.parse(
+                "{ \"user\": { \"format\": \"email\", \"email\": \"user@example.com\" } }")).isEmpty());
+    }
+
+    // Subjects differing in an identifying member or in format do not match
+    @Test
+    public void SubjectIndexNegativeTest() throws ParseException {
+        final SubjectIndex<String> index = new SubjectIndex<>();
+        index.add(new IssSubSubjectIdentifier.Builder()
+                .issuer("https://issuer.example.com/")
+                .subject("145234573")
+                .build(), "stream-1");
+
+        Assert.assertTrue(index.lookup(new IssSubSubjectIdentifier.Builder()
+                .issuer("https://issuer.example.com/")
+                .subject("999")
+                .build()).isEmpty());
+        Assert.assertTrue(index.lookup(new SubjectIdentifier.Builder()
+                .member("format", "x-iss_sub")
+                .member("iss", "https://issuer.example.com/")
+                .subject("145234573")
+                .build()).isEmpty());
+        Assert.assertFalse(index.remove(new EmailSubjectIdentifier.Builder().email("user@example.com").build(), "stream-1"));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> index.add(new EmailSubjectIdentifier.Builder().email("user@example.com").build(), null));
+    }
+
+    // A pattern matches on the members it holds, recursing into complex members and expanding aliases
+    @Test
+    public void SubjectMatcherTest() throws ParseException {
+        final String pattern_text = "{\n" +
+                "  \"tenant\": { \"format\": \"opaque\", \"id\": \"tenant-1\" },\n" +
+                "  \"user\": {\n" +
+                "    \"format\": \"aliases\",\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "      { \"format\": \"phone_number\", \"phone_number\": \"+12065550100\" }\n" +
+                "    ]\n" +
+                "  }\n" +
+                "}";
+        final String event_text = "{\n" +
+                "  \"tenant\": { \"format\": \"opaque\", \"id\": \"tenant-1\" },\n" +
+                "  \"user\": {\n" +
+                "    \"format\": \"aliases\",\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"format\": \"iss_sub\", \"iss\": \"https://issuer.example.com/\", \"sub\": \"145234573\" },\n" +
+                "      { \"format\": \"phone_number\", \"phone_number\": \"+12065550100\" }\n" +
+                "    ]\n" +
+                "  },\n" +
+                "  \"device\": { \"format\": \"opaque\", \"id\": \"device-1\" },\n" +
+                "  \"session\": { \"format\": \"opaque\", \"id\": \"session-1\" }\n" +
+                "}";
+
+        final SubjectMatcher matcher = SubjectMatcher.compile(JSONObjectUtils.parse(pattern_text));
+        Assert.assertTrue(matcher.matches(JSONObjectUtils.parse(event_text)));
+
+        final SubjectMatcher tenantOnly = SubjectMatcher.compile(new SubjectIdentifier.Builder()
+                .tenant(new OpaqueSubjectIdentifier.Builder().id("tenant-1").build())
+                .build());
+        Assert.assertTrue(tenantOnly.matches(JSONObjectUtils.parse(event_text)));
+        Assert.assertTrue(SubjectMatcher.compile(new SubjectIdentifier()).matches(JSONObjectUtils.parse(event_text)));
+    }
+
+    // Patterns do not match targets missing a member or holding a different value
+    @Test
+    public void SubjectMatcherNegativeTest() throws ParseException {
+        final SubjectMatcher matcher = SubjectMatcher.compile(new SubjectIdentifier.Builder()
+                .tenant(new OpaqueSubjectIdentifier.Builder().id("tenant-1").build())
+                .user(new EmailSubjectIdentifier.Builder().email("user@example.com").build())
+                .build());
+
+        Assert.assertFalse(matcher.matches(new SubjectIdentifier.Builder()
+                .tenant(new OpaqueSubjectIdentifier.Builder().id("tenant-1").build())
+                .build()));
+        Assert.assertFalse(matcher.matches(new SubjectIdentifier.Builder()
+                .tenant(new OpaqueSubjectIdentifier.Builder().id("tenant-2").build())
+                .user(new EmailSubjectIdentifier.Builder().email("user@example.com").build())
+                .build()));
+        Assert.assertFalse(matcher.matches(new SubjectIdentifier.Builder()
+                .tenant(new OpaqueSubjectIdentifier.Builder().id("tenant-1").build())
+                .user(new EmailSubjectIdentifier.Builder().email("other@example.com").build())
+                .build()));
+        Assert.assertFalse(matcher.matches(null));
+    }
+
+    // Array and object values are copied when compiled, so changing them in the pattern later has no effect
+    @Test
+    @SuppressWarnings("unchecked")
+    public void SubjectMatcherSnapshotTest() throws ParseException {
+        final String pattern_text = "{\n" +
+                "  \"format\": \"x-tagged\",\n" +
+                "  \"tags\": [ \"a\", \"b\" ],\n" +
+                "  \"origin\": { \"region\": \"eu\" }\n" +
+                "}";
+        final Map<String, Object> pattern = JSONObjectUtils.parse(pattern_text);
+        final SubjectMatcher matcher = SubjectMatcher.compile(pattern);
+
+        ((List<Object>) pattern.get("tags")).add("c");
+        ((Map<String, Object>) pattern.get("origin")).put("region", "us");
+        Assert.assertTrue(matcher.matches(JSONObjectUtils.parse(pattern_text)));
+        Assert.assertFalse(matcher.matches(pattern));
+    }
+
+    // Fingerprints ignore member and alias order, are memoized, and change when the subject or a child changes
+    @Test
+    public void FingerprintTest() throws ParseException, SIValidationException {
+        final String figure_text = "{\n" +
+                "  \"user\": {\n" +
+                "    \"format\": \"iss_sub\",\n" +
+                "    \"iss\": \"https://issuer.example.com/\",\n" +
+                "    \"sub\": \"145234573\"\n" +
+                "  },\n" +
+                "  \"tenant\": {\n" +
+                "    \"format\": \"aliases\",\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "      { \"format\": \"opaque\", \"id\": \"11112222333344445555\" }\n" +
+                "    ]\n" +
+                "  }\n" +
+                "}";
+        final String reordered_text = "{\n" +
+                "  \"tenant\": {\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"id\": \"11112222333344445555\", \"format\": \"opaque\" },\n" +
+                "      { \"email\": \"user@example.com\", \"format\": \"email\" }\n" +
+                "    ],\n" +
+                "    \"format\": \"aliases\"\n" +
+                "  },\n" +
+                "  \"user\": {\n" +
+                "    \"sub\": \"145234573\",\n" +
+                "    \"iss\": \"https://issuer.example.com/\",\n" +
+                "    \"format\": \"iss_sub\"\n" +
+                "  }\n" +
+                "}";
+
+        final SubjectIdentifier subj = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(figure_text)));
+        final SubjectIdentifier reordered = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(reordered_text)));
+        final byte[] fingerprint = subj.fingerprint();
+        Assert.assertEquals(32, fingerprint.length);
+        Assert.assertArrayEquals(fingerprint, reordered.fingerprint());
+        Assert.assertArrayEquals(fingerprint, subj.fingerprint());
+
+        final SubjectIdentifierWriter writer = new SubjectIdentifierWriter();
+        Assert.assertArrayEquals(writer.toCanonicalBytes(subj), writer.toCanonicalBytes(JSONObjectUtils.parse(reordered_text)));
+        Assert.assertArrayEquals(fingerprint, writer.fingerprint(JSONObjectUtils.parse(reordered_text)));
+        Assert.assertEquals("{\"email\":\"user@example.com\",\"format\":\"email\"}", new String(
+                writer.toCanonicalBytes(new EmailSubjectIdentifier.Builder().email("user@example.com").build()),
+                StandardCharsets.UTF_8));
+
+        // A change to a child Subject Identifier is seen by its parent
+        final SubjectIdentifier user = (SubjectIdentifier) subj.get(SubjectIdentifierMembers.USER.toString());
+        user.put(SubjectIdentifierMembers.SUBJECT, "other");
+        final byte[] changed = subj.fingerprint();
+        Assert.assertFalse(Arrays.equals(fingerprint, changed));
+        user.put(SubjectIdentifierMembers.SUBJECT, "145234573");
+        Assert.assertArrayEquals(fingerprint, subj.fingerprint());
+        subj.remove(SubjectIdentifierMembers.TENANT.toString());
+        Assert.assertFalse(Arrays.equals(fingerprint, subj.fingerprint()));
+    }
+
+    // URIs are checked against RFC 3986 and acct URIs against RFC 7565
+    @Test
+    public void URISyntaxTest() throws ParseException, SIValidationException {
+        for (String uri : new String[]{"https://issuer.example.com/", "https://user:pw@[2001:db8::7]:8443/a/b?q=1#f",
+                "http://[::ffff:192.0.2.1]/", "http://[v7.fe:80]/", "urn:ietf:params:oauth", "a:", "mailto:a%20b@c",
+                "file:///etc/hosts", "HTTPS://EXAMPLE.COM?x=/?"}) {
+            Assert.assertTrue(uri, URISyntax.schemeLength(uri) > 0);
+        }
+        Assert.assertEquals(5, URISyntax.schemeLength("https://issuer.example.com/"));
+        Assert.assertTrue(URISyntax.isAcctURI("acct:example.user@service.example.com"));
+        Assert.assertTrue(URISyntax.isAcctURI("ACCT:foo%40bar@[2001:db8::1]"));
+
+        new IssSubSubjectIdentifier.Builder().issuer("urn:example:issuer").subject("145234573").build().validate();
+        new AccountSubjectIdentifier.Builder().uri("acct:juliet%40capulet.example@shoppingsite.example").build().validate();
+    }
+
+    // Values java.net.URI accepts but RFC 3986 or RFC 7565 does not are rejected
+    @Test
+    public void URISyntaxNegativeTest() {
+        for (String uri : new String[]{":no-scheme", "1http://x", "http://exa mple.com/", "http://[2001:db8::7/",
+                "http://[1:2:3:4:5:6:7:8:9]/", "http://[::1::2]/", "http://[::256.0.0.1]/", "http://x:80a/",
+                "https://ex%zzample.com", "urn:caf\u00e9", "http://x/#a#b"}) {
+            Assert.assertEquals(uri, -1, URISyntax.schemeLength(uri));
+        }
+        for (String uri : new String[]{"acct:", "acct:@example.com", "acct:user", "acct:%41user@example.com",
+                "acct:user@host@example.com", "acct:user@exa mple.com", "acctx:user@example.com"}) {
+            Assert.assertFalse(uri, URISyntax.isAcctURI(uri));
+        }
+
+        Assert.assertThrows(SIValidationException.class, () -> new IssSubSubjectIdentifier.Builder()
+                .issuer("https://issuer.example.com/{tenant}").subject("145234573").build().validate());
+        Assert.assertThrows(SIValidationException.class, () -> new AccountSubjectIdentifier.Builder()
+                .uri("acct:user").build().validate());
+        Assert.assertThrows(SIValidationException.class, () -> new AccountSubjectIdentifier.Builder()
+                .uri("mailto:user@example.com").build().validate());
+    }
+
+    // A successful validation is remembered until the subject, one of its descendants or the rules change
+    @Test
+    public void ValidationMemoTest() throws ParseException, SIValidationException {
+        final AtomicInteger validations = new AtomicInteger();
+        SubjectIdentifierFormatRegistry.register("x-memo-test", SubjectIdentifier::new, subj -> validations.incrementAndGet());
+        try {
+            final String figure_text = "{\n" +
+                    "  \"user\": { \"format\": \"x-memo-test\", \"id\": \"1\" },\n" +
+                    "  \"tenant\": {\n" +
+                    "    \"format\": \"aliases\",\n" +
+                    "    \"identifiers\": [\n" +
+                    "      { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                    "      { \"format\": \"x-memo-test\", \"id\": \"2\" }\n" +
+                    "    ]\n" +
+                    "  }\n" +
+                    "}";
+            final SubjectIdentifier subj = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse(figure_text)));
+            Assert.assertEquals(2, validations.get());
+            subj.validate();
+            subj.validate();
+            Assert.assertTrue(subj.validationResult().isValid());
+            Assert.assertEquals(2, validations.get());
+
+            // A change inside aliases is seen from the top, and only the changed branch is validated again
+            final SubjectIdentifier tenant = (SubjectIdentifier) subj.get(SubjectIdentifierMembers.TENANT.toString());
+            final SubjectIdentifier email = (SubjectIdentifier) ((JSONArray) tenant.get("identifiers")).get(0);
+            email.put(SubjectIdentifierMembers.EMAIL, "");
+            Assert.assertThrows(SIValidationException.class, subj::validate);
+            email.put(SubjectIdentifierMembers.EMAIL, "user@example.com");
+            subj.validate();
+            Assert.assertEquals(2, validations.get());
+
+            final SubjectIdentifier user = (SubjectIdentifier) subj.get(SubjectIdentifierMembers.USER.toString());
+            user.remove(SubjectIdentifierMembers.FORMAT.toString());
+            subj.validate();
+            Assert.assertEquals(2, validations.get());
+            user.put(SubjectIdentifierMembers.FORMAT, "x-memo-test");
+            subj.validate();
+            Assert.assertEquals(3, validations.get());
+
+            // New rules make every remembered validation stale
+            SubjectIdentifierFormatRegistry.register("x-memo-test", SubjectIdentifier::new, subj2 -> {
+                throw new SIValidationException("rejected");
+            });
+            Assert.assertThrows(SIValidationException.class, subj::validate);
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-memo-test");
+        }
+    }
+
+    // Batches are converted in parallel, with results in order and failures reported per element
+    @Test
+    public void BatchConvertTest() throws ParseException {
+        final List<JSONObject> batch = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            batch.add(new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"email\": \""
+                    + (index % 10 == 0 ? "" : index + "@example.com") + "\"}")));
+        }
+
+        try (SubjectIdentifierBatchConverter converter = new SubjectIdentifierBatchConverter(4)) {
+            final List<SubjectIdentifierBatchConverter.Result> results = converter.convert(batch);
+            Assert.assertEquals(batch.size(), results.size());
+            for (int index = 0; index < results.size(); index++) {
+                final SubjectIdentifierBatchConverter.Result result = results.get(index);
+                if (index % 10 == 0) {
+                    Assert.assertFalse(result.isSuccess());
+                    Assert.assertTrue(result.getError() instanceof SIValidationException);
+                    Assert.assertNull(result.getSubject());
+                } else {
+                    Assert.assertTrue(result.isSuccess());
+                    Assert.assertTrue(result.getSubject() instanceof EmailSubjectIdentifier);
+                    Assert.assertEquals(index + "@example.com", result.getSubject().get("email"));
+                }
+            }
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> new SubjectIdentifierBatchConverter(0));
+        Assert.assertThrows(NullPointerException.class, () -> new SubjectIdentifierBatchConverter(null, 4));
+
+        // An executor rejecting tasks leaves the calling thread to convert the whole batch
+        final SubjectIdentifierBatchConverter closed = new SubjectIdentifierBatchConverter(4);
+        closed.close();
+        final List<SubjectIdentifierBatchConverter.Result> results = closed.convert(batch);
+        Assert.assertEquals(batch.size(), results.size());
+        Assert.assertEquals("999@example.com", results.get(999).getSubject().get("email"));
+        final SubjectIdentifierBatchConverter rejecting = new SubjectIdentifierBatchConverter(task -> {
+            throw new RejectedExecutionException("saturated");
+        }, 4);
+        Assert.assertEquals(batch.size(), rejecting.convert(batch).size());
+    }
+
+    // Unexpected exceptions, such as from a broken factory, fail their own element rather than the batch
+    @Test
+    public void BatchConvertNegativeTest() throws ParseException {
+        SubjectIdentifierFormatRegistry.register("x-broken", () -> {
+            throw new IllegalStateException("broken factory");
+        });
+        try (SubjectIdentifierBatchConverter converter = new SubjectIdentifierBatchConverter(2)) {
+            final List<JSONObject> batch = new ArrayList<>();
+            for (int index = 0; index < 100; index++) {
+                batch.add(new JSONObject(JSONObjectUtils.parse(index % 10 == 0 ? "{\"format\": \"x-broken\"}"
+                        : "{\"format\": \"email\", \"email\": \"" + index + "@example.com\"}")));
+            }
+            final List<SubjectIdentifierBatchConverter.Result> results = converter.convert(batch);
+            for (int index = 0; index < results.size(); index++) {
+                final SubjectIdentifierBatchConverter.Result result = results.get(index);
+                if (index % 10 == 0) {
+                    Assert.assertFalse(result.isSuccess());
+                    Assert.assertTrue(result.getError() instanceof IllegalStateException);
+                } else {
+                    Assert.assertTrue(result.isSuccess());
+                }
+            }
+        } finally {
+            SubjectIdentifierFormatRegistry.unregister("x-broken");
+        }
+    }
+
+    // The processor publishes converted subjects in order, with improper ones on the side, under backpressure
+    @Test
+    public void ProcessorTest() throws Exception {
+        final List<SubjectIdentifier> accepted = Collections.synchronizedList(new ArrayList<>());
+        final List<SubjectIdentifierProcessor.Rejected> rejected = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<Void> acceptedDone = new CompletableFuture<>();
+        final CompletableFuture<Void> rejectedDone = new CompletableFuture<>();
+        final SubmissionPublisher<JSONObject> upstream = new SubmissionPublisher<>();
+        try (SubjectIdentifierProcessor processor = new SubjectIdentifierProcessor(ForkJoinPool.commonPool(), 4, 16, 8)) {
+            processor.subscribe(new CollectingSubscriber<>(accepted, acceptedDone));
+            processor.getRejected().subscribe(new CollectingSubscriber<>(rejected, rejectedDone));
+            upstream.subscribe(processor);
+            for (int index = 0; index < 1000; index++) {
+                upstream.submit(new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"email\": \""
+                        + (index % 10 == 0 ? "" : index + "@example.com") + "\"}")));
+            }
+            upstream.close();
+            acceptedDone.get(30, TimeUnit.SECONDS);
+            rejectedDone.get(30, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(900, accepted.size());
+        Assert.assertEquals(100, rejected.size());
+        for (int index = 0; index < accepted.size(); index++) {
+            final int expected = index + index / 9 + 1;
+            Assert.assertEquals(expected + "@example.com", accepted.get(index).get("email"));
+        }
+        Assert.assertTrue(rejected.get(0).getError() instanceof SIValidationException);
+        Assert.assertEquals("", rejected.get(0).getInput().get("email"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new SubjectIdentifierProcessor(4, 0));
+    }
+
+    // A single thread executor runs both conversion and delivery without starving the processor
+    @Test
+    public void ProcessorSingleThreadTest() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(1);
+        final List<SubjectIdentifier> accepted = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<Void> acceptedDone = new CompletableFuture<>();
+        final SubmissionPublisher<JSONObject> upstream = new SubmissionPublisher<>();
+        try (SubjectIdentifierProcessor processor = new SubjectIdentifierProcessor(executor, 1, 16, 16)) {
+            processor.subscribe(new CollectingSubscriber<>(accepted, acceptedDone));
+            upstream.subscribe(processor);
+            for (int index = 0; index < 500; index++) {
+                upstream.submit(new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"email\": \""
+                        + index + "@example.com\"}")));
+            }
+            upstream.close();
+            acceptedDone.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(500, accepted.size());
+        Assert.assertEquals("499@example.com", accepted.get(499).get("email"));
+
+        // Converting from a thread of the executor itself does not wait for tasks queued behind it either
+        final ExecutorService single = Executors.newFixedThreadPool(1);
+        try (SubjectIdentifierBatchConverter converter = new SubjectIdentifierBatchConverter(single, 4)) {
+            final List<JSONObject> batch = new ArrayList<>();
+            for (int index = 0; index < 100; index++) {
+                batch.add(new JSONObject(JSONObjectUtils.parse("{\"format\": \"opaque\", \"id\": \"" + index + "\"}")));
+            }
+            Assert.assertEquals(100, single.submit(() -> converter.convert(batch)).get(30, TimeUnit.SECONDS).size());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    // Conversions and validations are reported once per root, with their shape and a stable error code
+    @Test
+    public void MetricsTest() throws ParseException, SIValidationException {
+        final List<String> operations = new ArrayList<>();
+        final SubjectIdentifierLatencyHistogram histogram = new SubjectIdentifierLatencyHistogram();
+        SubjectIdentifierMetrics.setListener((operation, format, depth, memberCount, nanos, error) -> {
+            operations.add(operation + " " + format + " " + depth + " " + memberCount + " " + error);
+            histogram.onOperation(operation, format, depth, memberCount, nanos, error);
+        });
+        try {
+            final SubjectIdentifier subj = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse("{\n" +
+                    "  \"user\": { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                    "  \"tenant\": {\n" +
+                    "    \"format\": \"aliases\",\n" +
+                    "    \"identifiers\": [ { \"format\": \"opaque\", \"id\": \"11112222\" } ]\n" +
+                    "  }\n" +
+                    "}")));
+            subj.validate();
+            final JSONObject improper = new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"email\": \"\"}"));
+            Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(improper));
+            Assert.assertThrows(ParseException.class, () -> SubjectIdentifier.convertSubjects(
+                    new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"email\": 42}"))));
+            SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse("{\"format\": \"x-unregistered\"}")));
+        } finally {
+            SubjectIdentifierMetrics.setListener(null);
+        }
+        Assert.assertEquals(Arrays.asList("CONVERT null 3 8 null", "VALIDATE null 3 8 null",
+                "CONVERT email 1 2 member_empty", "CONVERT email 1 2 member_not_string", "CONVERT x-unregistered 1 1 null"),
+                operations);
+
+        final SubjectIdentifierLatencyHistogram.Stats emails =
+                histogram.getStats(SubjectIdentifierMetricsListener.Operation.CONVERT, "email");
+        Assert.assertEquals(2, emails.getCount());
+        Assert.assertEquals(2, emails.getErrorCount());
+        Assert.assertEquals(1, emails.getErrorCount(SIValidationErrorCode.MEMBER_EMPTY));
+        Assert.assertEquals(4, emails.getMemberCount());
+        Assert.assertTrue(emails.getQuantileNanos(1) >= emails.getTotalNanos() / emails.getCount());
+        Assert.assertEquals(1, histogram.getStats(SubjectIdentifierMetricsListener.Operation.VALIDATE,
+                SubjectIdentifierLatencyHistogram.NO_FORMAT).getCount());
+        Assert.assertEquals(1, histogram.getStats(SubjectIdentifierMetricsListener.Operation.CONVERT,
+                SubjectIdentifierLatencyHistogram.UNREGISTERED_FORMAT).getCount());
+        Assert.assertNull(histogram.getStats(SubjectIdentifierMetricsListener.Operation.VALIDATE, "email"));
+    }
+
+    // Flight Recorder events carry the format, depth, identifier count and outcome, once enabled in a recording
+    @Test
+    public void FlightRecorderTest() throws Exception {
+        final Path file = Files.createTempFile("subjects", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.sailpoint.ietf.subjectidentifiers.Conversion");
+            recording.enable("com.sailpoint.ietf.subjectidentifiers.Validation");
+            recording.enable("com.sailpoint.ietf.subjectidentifiers.Aliases");
+            recording.start();
+            final SubjectIdentifier subj = SubjectIdentifier.convertSubjects(new JSONObject(JSONObjectUtils.parse("{\n" +
+                    "  \"user\": { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                    "  \"tenant\": {\n" +
+                    "    \"format\": \"aliases\",\n" +
+                    "    \"identifiers\": [ { \"format\": \"opaque\", \"id\": \"11112222\" } ]\n" +
+                    "  }\n" +
+                    "}")));
+            subj.validate();
+            Assert.assertThrows(SIValidationException.class, () -> SubjectIdentifier.convertSubjects(
+                    new JSONObject(JSONObjectUtils.parse("{\"format\": \"email\", \"email\": \"\"}"))));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        final List<String> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            final String name = event.getEventType().getName();
+            if (name.startsWith("com.sailpoint.ietf.subjectidentifiers.")) {
+                events.add(name.substring(name.lastIndexOf('.') + 1)
+                        + (event.hasField("format") ? " " + event.getString("format") + " " + event.getInt("depth") : "")
+                        + " " + event.getInt("identifierCount") + " " + event.getString("outcome"));
+            }
+        }
+        Collections.sort(events);
+        Assert.assertEquals(Arrays.asList("Aliases 1 valid", "Conversion email 1 1 member_empty",
+                "Conversion null 3 4 valid", "Validation null 3 4 valid"), events);
+        Files.delete(file);
+    }
+
+    private static final class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+        private final List<T> items;
+        private final CompletableFuture<Void> done;
+
+        private CollectingSubscriber(final List<T> items, final CompletableFuture<Void> done) {
+            this.items = items;
+            this.done = done;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    // Every problem is reported with an error code and a JSON pointer, instead of only the first
+    @Test
+    public void ValidationResultTest() throws ParseException {
+        final JSONArray identifiers = new JSONArray();
+        identifiers.add(new OpaqueSubjectIdentifier.Builder().id("11112222333344445555").build());
+        identifiers.add(new IssSubSubjectIdentifier.Builder().issuer("https://issuer.example.com/").build());
+        final SubjectIdentifier subj = new SubjectIdentifier.Builder()
+                .user(new EmailSubjectIdentifier.Builder().email("").build())
+                .tenant(new AliasesSubjectIdentifier.Builder().identifiers(identifiers).build())
+                .build();
+
+        final SIValidationResult result = subj.validationResult();
+        Assert.assertFalse(result.isValid());
+        final List<SIValidationResult.Problem> problems = new ArrayList<>(result.getProblems());
+        problems.sort(Comparator.comparing(SIValidationResult.Problem::getPath));
+        Assert.assertEquals(2, problems.size());
+        Assert.assertEquals(SIValidationErrorCode.MEMBER_MISSING, problems.get(0).getCode());
+        Assert.assertEquals("/tenant/identifiers/1/sub", problems.get(0).getPath());
+        Assert.assertEquals(SIValidationErrorCode.MEMBER_EMPTY, problems.get(1).getCode());
+        Assert.assertEquals("/user/email", problems.get(1).getPath());
+
+        Assert.assertTrue(new EmailSubjectIdentifier.Builder().email("user@example.com").build().validationResult().isValid());
+    }
+
+    // Exceptions thrown for improper Subject Identifiers carry the code and path of the first problem, and no stack trace
+    @Test
+    public void ValidationExceptionTest() throws ParseException {
+        final SubjectIdentifier subj = new SubjectIdentifier.Builder()
+                .user(new EmailSubjectIdentifier.Builder().email("").build())
+                .build();
+
+        final SIValidationException e = Assert.assertThrows(SIValidationException.class, subj::validate);
+        Assert.assertEquals(SIValidationErrorCode.MEMBER_EMPTY, e.getErrorCode());
+        Assert.assertEquals("/user/email", e.getPath());
+        Assert.assertEquals(0, e.getStackTrace().length);
+
+        final SubjectIdentifier notString = new OpaqueSubjectIdentifier.Builder().build();
+        notString.put("id", 1234L);
+        Assert.assertEquals(0, Assert.assertThrows(ParseException.class, notString::validate).getStackTrace().length);
+    }
+
     @Test
     public void OpaqueSubjectsTest() throws ParseException {
         final OpaqueSubjectIdentifier subj = new OpaqueSubjectIdentifier.Builder()
@@ -336,4 +1242,73 @@ public class SubjectIdentifierTests {
         subj.remove("format");
         Assert.assertThrows(SIValidationException.class, subj::validate);
     }
+
+    // Adopted maps are not copied, and children are converted only when requested
+    @Test
+    public void AdoptTest() throws ParseException, SIValidationException {
+        final String figure_text = "{\n" +
+                "  \"user\": { \"format\": \"email\", \"email\": \"user@example.com\" },\n" +
+                "  \"device\": { \"format\": \"email\", \"email\": \"\" },\n" +
+                "  \"tenant\": {\n" +
+                "    \"format\": \"aliases\",\n" +
+                "    \"identifiers\": [\n" +
+                "      { \"format\": \"opaque\", \"id\": \"11112222\" }\n" +
+                "    ]\n" +
+                "  }\n" +
+                "}";
+        final Map<String, Object> claim = JSONObjectUtils.parse(figure_text);
+        final Object device = claim.get("device");
+        final SubjectIdentifierView view = SubjectIdentifier.adopt(claim);
+        Assert.assertSame(claim, view.getMap());
+        Assert.assertNull(view.getFormat());
+
+        final SubjectIdentifier user = view.getChild(SubjectIdentifierMembers.USER);
+        Assert.assertTrue(user instanceof EmailSubjectIdentifier);
+        Assert.assertEquals("user@example.com", user.getString(SubjectIdentifierMembers.EMAIL));
+        Assert.assertSame(user, view.getChild("user"));
+        Assert.assertNull(view.getChild(SubjectIdentifierMembers.SESSION));
+
+        final SubjectIdentifierView tenant = SubjectIdentifierView.adopt(JSONObjectUtils.getJSONObject(claim, "tenant"));
+        Assert.assertEquals("aliases", tenant.getFormat());
+        final List<SubjectIdentifier> identifiers = tenant.getChildren("identifiers");
+        Assert.assertEquals(1, identifiers.size());
+        Assert.assertEquals("11112222", identifiers.get(0).getString(SubjectIdentifierMembers.ID));
+        Assert.assertSame(identifiers, tenant.getChildren("identifiers"));
+
+        // The whole subject takes in the children converted so far, leaving the adopted map unchanged
+        final SubjectIdentifier tenantTree = tenant.toSubjectIdentifier();
+        Assert.assertTrue(tenantTree instanceof AliasesSubjectIdentifier);
+        Assert.assertSame(identifiers.get(0), ((JSONArray) tenantTree.get("identifiers")).get(0));
+        Assert.assertFalse(((List<?>) JSONObjectUtils.getJSONObject(claim, "tenant").get("identifiers")).get(0)
+                instanceof SubjectIdentifier);
+        final Map<String, Object> validClaim = JSONObjectUtils.parse(figure_text);
+        validClaim.remove("device");
+        final SubjectIdentifierView validView = SubjectIdentifier.adopt(validClaim);
+        final SubjectIdentifier validUser = validView.getChild(SubjectIdentifierMembers.USER);
+        final SubjectIdentifier tree = validView.toSubjectIdentifier();
+        Assert.assertSame(validUser, tree.get("user"));
+        Assert.assertTrue(tree.get("tenant") instanceof AliasesSubjectIdentifier);
+        Assert.assertEquals(SubjectIdentifier.convertSubjects(new JSONObject(validClaim)), tree);
+
+        // The invalid device is left alone until it is requested
+        Assert.assertSame(device, claim.get("device"));
+        Assert.assertThrows(SIValidationException.class, () -> view.getChild(SubjectIdentifierMembers.DEVICE));
+        Assert.assertThrows(SIValidationException.class, view::toSubjectIdentifier);
+    }
+
+    // Members of unexpected types are reported when requested
+    @Test
+    public void AdoptNegativeTest() throws ParseException, SIValidationException {
+        final SubjectIdentifierView view = SubjectIdentifier.adopt(JSONObjectUtils.parse("{\n" +
+                "  \"format\": \"email\",\n" +
+                "  \"email\": 42,\n" +
+                "  \"user\": \"user@example.com\"\n" +
+                "}"));
+        Assert.assertEquals("email", view.getFormat());
+        Assert.assertEquals(42L, ((Number) view.get("email")).longValue());
+        Assert.assertThrows(ParseException.class, () -> view.getString(SubjectIdentifierMembers.EMAIL));
+        Assert.assertThrows(ParseException.class, () -> view.getChild(SubjectIdentifierMembers.USER));
+        Assert.assertThrows(ParseException.class, () -> view.getChildren("user"));
+        Assert.assertNull(SubjectIdentifier.adopt(null));
+    }
 }